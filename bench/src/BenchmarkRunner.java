@@ -0,0 +1,31 @@
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/* Запуск бенчмарков с профилировщиком GC: кроме времени операции JMH выводит
+   gc.alloc.rate.norm - байты, выделенные на одну операцию, и число сборок мусора.
+   Аргументы - регулярные выражения имен бенчмарков, например:
+       BenchmarkRunner TaskManagerBenchmark.getTask
+   Без аргументов запускаются все бенчмарки. Результаты пишутся в jmh-result.json */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(".*Benchmark.*");
+        }
+        for (String pattern : args) {
+            builder.include(pattern);
+        }
+
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
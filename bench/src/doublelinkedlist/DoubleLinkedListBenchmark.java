@@ -0,0 +1,67 @@
+package doublelinkedlist;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class DoubleLinkedListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private DoubleLinkedList<Integer, String> list;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = new DoubleLinkedList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i, "Элемент" + i);
+        }
+        random = new Random(7);
+    }
+
+    /* add существующего ключа переносит элемент в конец */
+    @Benchmark
+    public void moveToEnd() {
+        final int key = random.nextInt(size);
+        list.add(key, "Элемент" + key);
+    }
+
+    @Benchmark
+    public boolean removeAndAdd() {
+        final int key = random.nextInt(size);
+        final boolean removed = list.remove(key);
+        list.add(key, "Элемент" + key);
+        return removed;
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return list.containsKey(random.nextInt(size));
+    }
+
+    @Benchmark
+    public List<String> getElements() {
+        return list.getElements();
+    }
+}
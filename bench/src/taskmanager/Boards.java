@@ -0,0 +1,57 @@
+package taskmanager;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/* Заполнение менеджера тестовой доской.
+   size       - общее число элементов (задачи, эпики и подзадачи);
+   fanOut     - число подзадач у эпика, 0 - только обычные задачи;
+   timedRatio - доля задач и подзадач со временем старта.
+   Задачи со временем идут друг за другом с шагом в час и длительностью 30 минут, поэтому не пересекаются */
+final class Boards {
+
+    static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final Duration DURATION = Duration.ofMinutes(30);
+    private static final Status[] STATUSES = {Status.NEW, Status.IN_PROGRESS, Status.DONE};
+
+    private Boards() {
+    }
+
+    static void fill(TaskManager manager, int size, int fanOut, double timedRatio) {
+        final Random random = new Random(42);
+        int slot = 0;
+        int created = 0;
+        while (created < size) {
+            if (fanOut == 0) {
+                LocalDateTime time = random.nextDouble() < timedRatio ? START.plusHours(slot++) : null;
+                manager.addTask(new Task("Задача" + created, "Описание задачи", status(random), time,
+                        time == null ? null : DURATION));
+                created++;
+                continue;
+            }
+
+            Epic epic = manager.addEpic(new Epic("Эпик" + created, "Описание эпика"));
+            created++;
+            for (int i = 0; i < fanOut && created < size; i++, created++) {
+                LocalDateTime time = random.nextDouble() < timedRatio ? START.plusHours(slot++) : null;
+                manager.addSubtask(new Subtask("Подзадача" + created, "Описание подзадачи", status(random),
+                        epic.getId(), time, time == null ? null : DURATION));
+            }
+        }
+    }
+
+    /* Время, заведомо свободное после fill - позже всех задач доски */
+    static LocalDateTime freeTime(int size) {
+        return START.plusHours(size + 1L);
+    }
+
+    private static Status status(Random random) {
+        return STATUSES[random.nextInt(STATUSES.length)];
+    }
+}
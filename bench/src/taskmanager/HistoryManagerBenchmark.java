@@ -0,0 +1,70 @@
+package taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* История из size просмотренных задач: неограниченная InMemoryHistoryManager
+   и BoundedHistoryManager емкостью size */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class HistoryManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"unbounded", "bounded"})
+    public String history;
+
+    private HistoryManager manager;
+    private Task[] tasks;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = history.equals("bounded") ? new BoundedHistoryManager(size) : new InMemoryHistoryManager();
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, "Задача" + i, "Описание задачи", Status.NEW, null, null);
+            manager.add(tasks[i]);
+        }
+        random = new Random(7);
+    }
+
+    /* Повторный просмотр: задача переносится в конец истории */
+    @Benchmark
+    public void add() {
+        manager.add(tasks[random.nextInt(size)]);
+    }
+
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = tasks[random.nextInt(size)];
+        manager.remove(task.getId());
+        manager.add(task);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+}
@@ -0,0 +1,75 @@
+package taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/* Полная запись снимка (save) и загрузка (loadFromFile) FileBackedTaskManager в обоих форматах.
+   Доска заполняется в режиме журнала без компактификации, чтобы не писать снимок на каждое изменение */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class PersistenceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0", "10"})
+    public int fanOut;
+
+    @Param({"0.0", "0.5"})
+    public double timedRatio;
+
+    @Param({"CSV", "BINARY"})
+    public FileFormat format;
+
+    private Path path;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("bench", format == FileFormat.CSV ? ".csv" : ".bin");
+        manager = FileBackedTaskManager.loadFromFile(path, SavePolicy.journal(Long.MAX_VALUE), format);
+        Boards.fill(manager, size, fanOut, timedRatio);
+        manager.save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public void save() {
+        manager.save();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(path);
+    }
+
+    /* Для сравнения с loadFromFile: CSV разбирается в одном потоке */
+    @Benchmark
+    public FileBackedTaskManager loadFromFileSequential() {
+        return FileBackedTaskManager.loadFromFile(path, SavePolicy.sync(), format, null);
+    }
+}
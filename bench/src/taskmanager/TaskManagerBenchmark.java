@@ -0,0 +1,171 @@
+package taskmanager;
+
+import exception.TaskTimeConflictException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Основные операции InMemoryTaskManager на доске заданного размера.
+   Операции добавления парные (добавить и удалить), чтобы размер доски не менялся между итерациями */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TaskManagerBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0", "10"})
+    public int fanOut;
+
+    @Param({"0.0", "0.5"})
+    public double timedRatio;
+
+    private InMemoryTaskManager manager;
+    private int[] taskIds;
+    private Subtask[] subtasks;
+    private Task conflicting;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        Boards.fill(manager, size, fanOut, timedRatio);
+        taskIds = (fanOut == 0 ? manager.getTasks() : manager.getSubtasks()).stream()
+                .mapToInt(Task::getId)
+                .toArray();
+        subtasks = manager.getSubtasks().toArray(new Subtask[0]);
+        conflicting = manager.getPrioritizedTasks().stream()
+                .findFirst()
+                .map(task -> new Task("Конфликт", "", Status.NEW, task.getStartTime(), task.getDuration()))
+                .orElse(null);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public Task addAndRemoveTask() {
+        Task task = manager.addTask(new Task("Новая", "", Status.NEW));
+        return manager.removeTask(task.getId());
+    }
+
+    @Benchmark
+    public Task addAndRemoveTimedTask() {
+        Task task = manager.addTask(new Task("Новая", "", Status.NEW, Boards.freeTime(size), Boards.DURATION));
+        return manager.removeTask(task.getId());
+    }
+
+    /* Пачка из BATCH задач со временем: одна проверка пересечений на всю пачку */
+    @Benchmark
+    public List<Task> addAndRemoveTimedBatch() {
+        final LocalDateTime start = Boards.freeTime(size);
+        final List<Task> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Task("Новая", "", Status.NEW, start.plusHours(i), Boards.DURATION));
+        }
+        final List<Task> added = manager.addTasks(batch);
+        return manager.removeTasks(added.stream().mapToInt(Task::getId).toArray());
+    }
+
+    /* checkTaskTimeCollision закрытый, поэтому измеряется через addTask, который его вызывает */
+    @Benchmark
+    public Object checkTaskTimeCollision() {
+        if (conflicting == null)
+            return null;
+        try {
+            return manager.addTask(conflicting.clone());
+        } catch (TaskTimeConflictException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void getTask(Blackhole blackhole) {
+        final int id = taskIds[random.nextInt(taskIds.length)];
+        blackhole.consume(fanOut == 0 ? manager.getTask(id) : manager.getSubtask(id));
+    }
+
+    @Benchmark
+    public Subtask updateSubtask() {
+        if (subtasks.length == 0)
+            return null;
+        Subtask updated = subtasks[random.nextInt(subtasks.length)].clone();
+        updated.setStatus(updated.getStatus() == Status.DONE ? Status.NEW : Status.DONE);
+        return manager.updateSubtask(updated);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    /* Все промежутки заполненного расписания короче DURATION, место находится только после последней задачи */
+    @Benchmark
+    public LocalDateTime findFreeSlot() {
+        return manager.findFreeSlot(Boards.DURATION, Boards.START);
+    }
+
+    /* Неделя расписания (задачи идут по одной в час) против фильтрации полного списка */
+    @Benchmark
+    public List<Task> getTasksBetweenWeek() {
+        final LocalDateTime from = Boards.START.plusHours(random.nextInt(size));
+        return manager.getTasksBetween(from, from.plusWeeks(1));
+    }
+
+    @Benchmark
+    public List<Task> filterPrioritizedTasksWeek() {
+        final LocalDateTime from = Boards.START.plusHours(random.nextInt(size));
+        final LocalDateTime to = from.plusWeeks(1);
+        return manager.getPrioritizedTasks().stream()
+                .filter(task -> !task.getStartTime().isBefore(from) && task.getStartTime().isBefore(to))
+                .toList();
+    }
+
+    /* Запрос, набранный не до конца: префикс названия случайной задачи */
+    @Benchmark
+    public List<Task> search() {
+        final int id = taskIds[random.nextInt(taskIds.length)];
+        final String name = (fanOut == 0 ? "Задача" : "Подзадача") + (id - 1); // Boards нумерует с нуля
+        return manager.search(name.substring(0, name.length() - 1), 20);
+    }
+
+    @Benchmark
+    public int countByStatus() {
+        return manager.countByStatus(fanOut == 0 ? TaskType.TASK : TaskType.SUBTASK, Status.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public List<? extends Task> getTasksPage() {
+        final int after = taskIds[random.nextInt(taskIds.length)];
+        return fanOut == 0 ? manager.getTasks(after, 50) : manager.getSubtasks(after, 50);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+}
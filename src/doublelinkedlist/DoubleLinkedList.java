@@ -1,5 +1,7 @@
 package doublelinkedlist;
 
+import intcollections.IntMap;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -10,9 +12,17 @@ public class DoubleLinkedList<K, T> {
     private Node<T> tail;
     private int size;
     private final Map<K, Node<T>> map;
+    private final IntMap<Node<T>> intMap; // тот же индекс, если он с ключами int, иначе null
 
     public DoubleLinkedList() {
-        this.map = new HashMap<>();
+        this(new HashMap<>());
+    }
+
+    /* map - индекс ключ -> узел; можно передать специализированную реализацию, например для int-ключей */
+    @SuppressWarnings("unchecked")
+    public DoubleLinkedList(Map<K, Node<T>> map) {
+        this.map = map;
+        this.intMap = map instanceof IntMap<?> ints ? (IntMap<Node<T>>) ints : null;
         this.head = null;
         this.tail = null;
         this.size = 0;
@@ -42,6 +52,53 @@ public class DoubleLinkedList<K, T> {
         return list;
     }
 
+    /* Не более limit первых элементов списка */
+    public ArrayList<T> getFirstElements(int limit) {
+        return elements(head, limit);
+    }
+
+    /* Не более limit элементов, следующих за элементом key; если key нет - пустой список */
+    public ArrayList<T> getElementsAfter(K key, int limit) {
+        return elementsAfter(map.get(key), limit);
+    }
+
+    /* Методы с ключом int для списков с ключами Integer: с IntMap-индексом обходятся без упаковки */
+    public ArrayList<T> getElementsAfter(int key, int limit) {
+        return elementsAfter(node(key), limit);
+    }
+
+    public boolean remove(int key) {
+        boolean removed = remove(node(key));
+        if (removed) {
+            if (intMap != null)
+                intMap.remove(key);
+            else
+                map.remove(key);
+        }
+        return removed;
+    }
+
+    public boolean containsKey(int key) {
+        return node(key) != null;
+    }
+
+    private Node<T> node(int key) {
+        return intMap != null ? intMap.get(key) : map.get(key);
+    }
+
+    private ArrayList<T> elementsAfter(Node<T> after, int limit) {
+        return after != null ? elements(after.getNext(), limit) : new ArrayList<>();
+    }
+
+    private ArrayList<T> elements(Node<T> node, int limit) {
+        ArrayList<T> list = new ArrayList<>(Math.max(0, Math.min(limit, size)));
+        while (node != null && list.size() < limit) {
+            list.add(node.getData());
+            node = node.getNext();
+        }
+        return list;
+    }
+
     public long size() {
         return size;
     }
@@ -2,5 +2,6 @@ package exception;
 
 public class ManagerSaveException extends RuntimeException {
     public ManagerSaveException(String message) {
+        super(message);
     }
 }
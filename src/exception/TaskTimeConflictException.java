@@ -4,4 +4,9 @@ public class TaskTimeConflictException extends RuntimeException {
     public TaskTimeConflictException(String name, Integer otherId) {
         super("Задача '" + name + "' пересекается по времени с задачей name:" + otherId);
     }
+
+    /* Для задач одной пачки, которым еще не выдан id */
+    public TaskTimeConflictException(String name, String otherName) {
+        super("Задача '" + name + "' пересекается по времени с задачей '" + otherName + "'");
+    }
 }
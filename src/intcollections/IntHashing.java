@@ -0,0 +1,29 @@
+package intcollections;
+
+/* Общие вычисления для хеш-таблиц с открытой адресацией */
+final class IntHashing {
+
+    static final int MIN_CAPACITY = 8;
+    static final float LOAD_FACTOR = 0.6f;
+
+    private IntHashing() {
+    }
+
+    /* Перемешивание бит ключа: последовательные id не должны попадать в соседние ячейки цепочкой */
+    static int mix(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int threshold(int capacity) {
+        return (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,141 @@
+package intcollections;
+
+import java.util.Arrays;
+
+/* Хеш-таблица int -> int с открытой адресацией, без упаковки ключей и значений.
+   Отсутствие ключа сообщается значением по умолчанию, которое передает вызывающий */
+public class IntIntMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final byte FREE = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private int[] keys;
+    private int[] values;
+    private byte[] states;
+    private int size;
+    private int used; // занятые и удаленные ячейки
+
+    public IntIntMap() {
+        this(0);
+    }
+
+    public IntIntMap(int expectedSize) {
+        allocate(IntHashing.capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        final int index = find(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    public void put(int key, int value) {
+        final int mask = states.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        int free = -1;
+        for (byte state = states[index]; state != FREE; state = states[index]) {
+            if (state == REMOVED) {
+                if (free < 0)
+                    free = index;
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (free < 0) {
+            free = index;
+            used++;
+        }
+        keys[free] = key;
+        values[free] = value;
+        states[free] = FULL;
+        size++;
+        if (used > IntHashing.threshold(states.length))
+            rehash(size >= IntHashing.threshold(states.length) / 2 ? states.length << 1 : states.length);
+    }
+
+    /* Удаляет ключ и возвращает его значение или defaultValue, если ключа не было */
+    public int remove(int key, int defaultValue) {
+        final int index = find(key);
+        if (index < 0)
+            return defaultValue;
+        // если следующая ячейка свободна, цепочка пробирования здесь обрывается и метка не нужна
+        if (states[(index + 1) & (states.length - 1)] == FREE) {
+            states[index] = FREE;
+            used--;
+        } else {
+            states[index] = REMOVED;
+        }
+        size--;
+        return values[index];
+    }
+
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == FULL)
+                action.accept(keys[i], values[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(states, FREE);
+        size = 0;
+        used = 0;
+    }
+
+    private int find(int key) {
+        final int mask = states.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        for (byte state = states[index]; state != FREE; state = states[index]) {
+            if (state == FULL && keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        final byte[] oldStates = states;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != FULL)
+                continue;
+            int index = IntHashing.mix(oldKeys[i]) & mask;
+            while (states[index] != FREE) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+            states[index] = FULL;
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        states = new byte[capacity];
+    }
+}
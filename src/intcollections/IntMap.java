@@ -0,0 +1,19 @@
+package intcollections;
+
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/* Map с ключами int. Методы с примитивным ключом работают без упаковки в Integer;
+   вызов с аргументом типа int выбирает именно их */
+public interface IntMap<V> extends Map<Integer, V> {
+
+    V get(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+
+    void forEachKey(IntConsumer action);
+}
@@ -0,0 +1,278 @@
+package intcollections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/* Хеш-таблица int -> объект с открытой адресацией и линейным пробированием.
+   Ключи и значения лежат в двух массивах, поэтому запись не требует отдельного объекта-узла
+   и упаковки ключа. Пустая ячейка - null в values, удаленная - REMOVED.
+   Значения null не поддерживаются */
+public class IntObjectMap<V> extends AbstractMap<Integer, V> implements IntMap<V> {
+
+    private static final Object REMOVED = new Object();
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int used; // занятые и удаленные ячейки
+    private int modCount;
+
+    public IntObjectMap() {
+        this(0);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        allocate(IntHashing.capacityFor(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        final int index = find(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        final int mask = values.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        int free = -1;
+        for (Object current = values[index]; current != null; current = values[index]) {
+            if (current == REMOVED) {
+                if (free < 0)
+                    free = index;
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return (V) current;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (free < 0) {
+            free = index;
+            used++;
+        }
+        keys[free] = key;
+        values[free] = value;
+        size++;
+        modCount++;
+        if (used > IntHashing.threshold(values.length))
+            rehash(size >= IntHashing.threshold(values.length) / 2 ? values.length << 1 : values.length);
+        return null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(int key) {
+        final int index = find(key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        used = 0;
+        modCount++;
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            if (isFull(values[i]))
+                action.accept(keys[i]);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Integer, V>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private int find(int key) {
+        final int mask = values.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        for (Object current = values[index]; current != null; current = values[index]) {
+            if (current != REMOVED && keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int index) {
+        final V removed = (V) values[index];
+        // если следующая ячейка пуста, цепочка пробирования здесь обрывается и метка не нужна
+        if (values[(index + 1) & (values.length - 1)] == null) {
+            values[index] = null;
+            used--;
+        } else {
+            values[index] = REMOVED;
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (!isFull(oldValues[i]))
+                continue;
+            int index = IntHashing.mix(oldKeys[i]) & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    private static boolean isFull(Object value) {
+        return value != null && value != REMOVED;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<Integer, V> next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (next >= values.length)
+                throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            // при удалении из итератора всегда ставим метку, чтобы не сдвигать еще не пройденные ячейки
+            values[last] = REMOVED;
+            size--;
+            modCount++;
+            expectedModCount = modCount;
+            last = -1;
+        }
+
+        private int advance(int from) {
+            while (from < values.length && !isFull(values[from])) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    private class Entry implements Map.Entry<Integer, V> {
+        private final int index;
+        private final int key;
+
+        Entry(int index) {
+            this.index = index;
+            this.key = keys[index];
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) values[index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            final V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(getKey(), entry.getKey())
+                    && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package intcollections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/* Множество int с открытой адресацией: массив ключей и массив состояний ячеек.
+   Методы с аргументом int, forEachInt и итератор с nextInt() обходятся без упаковки */
+public class IntSet extends AbstractSet<Integer> {
+
+    private static final byte FREE = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private int[] keys;
+    private byte[] states;
+    private int size;
+    private int used; // занятые и удаленные ячейки
+    private int modCount;
+    private boolean frozen;
+
+    public IntSet() {
+        this(0);
+    }
+
+    public IntSet(int expectedSize) {
+        allocate(IntHashing.capacityFor(expectedSize));
+    }
+
+    /* Копия всегда изменяемая, даже если other заморожено */
+    public IntSet(IntSet other) {
+        keys = other.keys.clone();
+        states = other.states.clone();
+        size = other.size;
+        used = other.used;
+    }
+
+    /* После вызова любые изменения множества бросают UnsupportedOperationException */
+    public void freeze() {
+        frozen = true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer key && contains(key.intValue());
+    }
+
+    public boolean add(int key) {
+        checkMutable();
+        final int mask = states.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        int free = -1;
+        for (byte state = states[index]; state != FREE; state = states[index]) {
+            if (state == REMOVED) {
+                if (free < 0)
+                    free = index;
+            } else if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (free < 0) {
+            free = index;
+            used++;
+        }
+        keys[free] = key;
+        states[free] = FULL;
+        size++;
+        modCount++;
+        if (used > IntHashing.threshold(states.length))
+            rehash(size >= IntHashing.threshold(states.length) / 2 ? states.length << 1 : states.length);
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer key) {
+        return add(key.intValue());
+    }
+
+    public boolean remove(int key) {
+        checkMutable();
+        final int index = find(key);
+        if (index < 0)
+            return false;
+        // если следующая ячейка свободна, цепочка пробирования здесь обрывается и метка не нужна
+        if (states[(index + 1) & (states.length - 1)] == FREE) {
+            states[index] = FREE;
+            used--;
+        } else {
+            states[index] = REMOVED;
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer key && remove(key.intValue());
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        if (size == 0 && used == 0)
+            return;
+        Arrays.fill(states, FREE);
+        size = 0;
+        used = 0;
+        modCount++;
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == FULL)
+                action.accept(keys[i]);
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = advance(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < states.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (expectedModCount != modCount)
+                    throw new ConcurrentModificationException();
+                if (next >= states.length)
+                    throw new NoSuchElementException();
+                last = next;
+                next = advance(next + 1);
+                return keys[last];
+            }
+
+            @Override
+            public void remove() {
+                checkMutable();
+                if (last < 0)
+                    throw new IllegalStateException();
+                if (expectedModCount != modCount)
+                    throw new ConcurrentModificationException();
+                // при удалении из итератора всегда ставим метку, чтобы не сдвигать еще не пройденные ячейки
+                states[last] = REMOVED;
+                size--;
+                modCount++;
+                expectedModCount = modCount;
+                last = -1;
+            }
+
+            private int advance(int from) {
+                while (from < states.length && states[from] != FULL) {
+                    from++;
+                }
+                return from;
+            }
+        };
+    }
+
+    private void checkMutable() {
+        if (frozen)
+            throw new UnsupportedOperationException();
+    }
+
+    private int find(int key) {
+        final int mask = states.length - 1;
+        int index = IntHashing.mix(key) & mask;
+        for (byte state = states[index]; state != FREE; state = states[index]) {
+            if (state == FULL && keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final byte[] oldStates = states;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != FULL)
+                continue;
+            int index = IntHashing.mix(oldKeys[i]) & mask;
+            while (states[index] != FREE) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            states[index] = FULL;
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        states = new byte[capacity];
+    }
+}
@@ -0,0 +1,133 @@
+package intcollections;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* Упорядоченное множество int на отсортированном массиве - для постраничного обхода по возрастанию.
+   Менеджер выдает id по возрастанию, поэтому добавление обычно дописывает в конец - O(1).
+   Значение меньше последнего тоже дописывается в конец, а массив сортируется при первом чтении:
+   так загрузка задач из файла в произвольном порядке стоит одну сортировку, а не сдвиг массива
+   на каждое добавление. Удаление помечает ячейку в removed, массив уплотняется, когда удаленных
+   становится больше половины. Страница - двоичный поиск и limit ячеек (плюс удаленные между ними).
+
+   Сортировка при чтении меняет массив, поэтому она синхронизирована: читатели ConcurrentTaskManager
+   работают параллельно под блокировкой чтения. Изменения должны идти под внешней блокировкой записи */
+public class IntSortedSet {
+
+    private int[] values = new int[16];
+    private int length; // занятые ячейки, включая удаленные
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    /* false - в [0, length) могут быть неупорядоченные значения и повторы, удаленных при этом нет */
+    private volatile boolean sorted = true;
+
+    public int size() {
+        normalize();
+        return length - removedCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(int value) {
+        normalize();
+        final int index = Arrays.binarySearch(values, 0, length, value);
+        return index >= 0 && !removed.get(index);
+    }
+
+    public void add(int value) {
+        if (length > 0 && value <= values[length - 1] && sorted) {
+            final int index = Arrays.binarySearch(values, 0, length, value);
+            if (index >= 0) {
+                if (removed.get(index)) {
+                    removed.clear(index);
+                    removedCount--;
+                }
+                return;
+            }
+            compact(); // в неупорядоченном массиве удаленных быть не должно
+            sorted = false;
+        }
+        if (length == values.length)
+            values = Arrays.copyOf(values, length * 2);
+        values[length++] = value;
+    }
+
+    public boolean remove(int value) {
+        normalize();
+        final int index = Arrays.binarySearch(values, 0, length, value);
+        if (index < 0 || removed.get(index))
+            return false;
+        removed.set(index);
+        removedCount++;
+        if (removedCount > length / 2)
+            compact();
+        return true;
+    }
+
+    public void clear() {
+        length = 0;
+        removed.clear();
+        removedCount = 0;
+        sorted = true;
+    }
+
+    /* Все значения по возрастанию */
+    public int[] toArray() {
+        normalize();
+        final int[] result = new int[length - removedCount];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (!removed.get(i))
+                result[count++] = values[i];
+        }
+        return result;
+    }
+
+    /* Не более limit значений больше after по возрастанию */
+    public int[] after(int after, int limit) {
+        normalize();
+        if (limit <= 0)
+            return new int[0];
+        final int found = Arrays.binarySearch(values, 0, length, after);
+        int index = found >= 0 ? found + 1 : -found - 1;
+        final int[] page = new int[Math.min(limit, length - index)];
+        int count = 0;
+        for (; index < length && count < page.length; index++) {
+            if (!removed.get(index))
+                page[count++] = values[index];
+        }
+        return count == page.length ? page : Arrays.copyOf(page, count);
+    }
+
+    private void normalize() {
+        if (sorted)
+            return;
+        synchronized (this) {
+            if (sorted)
+                return;
+            Arrays.sort(values, 0, length);
+            int unique = 0;
+            for (int i = 0; i < length; i++) {
+                if (unique == 0 || values[i] != values[unique - 1])
+                    values[unique++] = values[i];
+            }
+            length = unique;
+            sorted = true;
+        }
+    }
+
+    private void compact() {
+        if (removedCount == 0)
+            return;
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (!removed.get(i))
+                values[kept++] = values[i];
+        }
+        length = kept;
+        removed.clear();
+        removedCount = 0;
+    }
+}
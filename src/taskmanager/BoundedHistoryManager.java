@@ -0,0 +1,140 @@
+package taskmanager;
+
+import intcollections.IntIntMap;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* История фиксированного размера. Записи лежат в массиве items, порядок просмотра задается
+   двусвязным списком на массивах prev/next (индексы слотов), index - id задачи -> слот.
+   Добавление, перенос в конец и удаление - O(1) без создания узлов. Когда история заполнена,
+   самый старый просмотр вытесняется и его слот используется для нового.
+   Хранятся неизменяемые снимки задач (Task.snapshot()), поэтому повторный просмотр
+   неизмененной задачи ничего не копирует */
+public class BoundedHistoryManager implements HistoryManager {
+
+    private static final int NONE = -1;
+
+    private final Task[] items;
+    private final int[] prev;
+    private final int[] next;
+    private final IntIntMap index;
+    private int head = NONE; // самый старый просмотр
+    private int tail = NONE; // самый новый просмотр
+    private int size;
+    private int freeSlots; // слоты [size..capacity) еще не использовались, далее - список свободных
+    private int freeHead = NONE;
+
+    public BoundedHistoryManager(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
+        items = new Task[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        index = new IntIntMap(capacity);
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null)
+            return;
+
+        final int id = task.getId();
+        int slot = index.getOrDefault(id, NONE);
+        if (slot != NONE) {
+            items[slot] = task.snapshot();
+            unlink(slot);
+            linkLast(slot);
+            return;
+        }
+
+        slot = allocate();
+        items[slot] = task.snapshot();
+        index.put(id, slot);
+        linkLast(slot);
+        size++;
+    }
+
+    @Override
+    public void remove(int id) {
+        final int slot = index.remove(id, NONE);
+        if (slot == NONE)
+            return;
+        unlink(slot);
+        release(slot);
+        size--;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            history.add(items[slot]);
+        }
+        return history;
+    }
+
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        final int after = afterId == FIRST_PAGE ? NONE : index.getOrDefault(afterId, NONE);
+        if (after == NONE && afterId != FIRST_PAGE)
+            return new ArrayList<>();
+        List<Task> history = new ArrayList<>(Math.max(0, Math.min(limit, size)));
+        for (int slot = after == NONE ? head : next[after]; slot != NONE && history.size() < limit;
+             slot = next[slot]) {
+            history.add(items[slot]);
+        }
+        return history;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            final int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (freeSlots < items.length)
+            return freeSlots++;
+
+        // история заполнена - вытесняем самый старый просмотр
+        final int slot = head;
+        index.remove(items[slot].getId(), NONE);
+        unlink(slot);
+        size--;
+        return slot;
+    }
+
+    private void release(int slot) {
+        items[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE)
+            head = slot;
+        else
+            next[tail] = slot;
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        final int before = prev[slot];
+        final int after = next[slot];
+        if (before == NONE)
+            head = after;
+        else
+            next[before] = after;
+        if (after == NONE)
+            tail = before;
+        else
+            prev[after] = before;
+    }
+}
@@ -0,0 +1,324 @@
+package taskmanager;
+
+import exception.TaskTimeConflictException;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/* Потокобезопасный менеджер. Состояние разбито на три части, у каждой своя блокировка чтения-записи:
+   tasksLock    - обычные задачи;
+   epicsLock    - эпики, подзадачи и накопленные значения эпиков;
+   scheduleLock - индекс задач по времени.
+   Чтение идет параллельно, запись блокирует только затронутые части: например, добавление задачи
+   без времени не мешает работе с эпиками и расписанием. Блокировки всегда берутся в порядке
+   tasks -> epics -> schedule */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private static final int PAGE_SIZE = 256;
+
+    private final ReadWriteLock tasksLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock epicsLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock scheduleLock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(new SynchronizedHistoryManager(historyManager));
+    }
+
+    @Override
+    public Task addTask(Task task) throws TaskTimeConflictException {
+        return write(tasksLock, () -> isTimed(task)
+                ? write(scheduleLock, () -> super.addTask(task))
+                : super.addTask(task));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return write(epicsLock, () -> super.addEpic(epic));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) throws TaskTimeConflictException {
+        return write(epicsLock, () -> isTimed(subtask)
+                ? write(scheduleLock, () -> super.addSubtask(subtask))
+                : super.addSubtask(subtask));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(tasksLock, () -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(epicsLock, () -> super.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return read(epicsLock, () -> super.getSubtask(id));
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(tasksLock, super::getTasks);
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return read(tasksLock, () -> super.getTasks(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(scheduleLock, super::getPrioritizedTasks);
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        return read(type == TaskType.TASK ? tasksLock : epicsLock, () -> super.countByStatus(type, status));
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        return read(type == TaskType.TASK ? tasksLock : epicsLock, () -> super.getByStatus(type, status));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(tasksLock, () -> read(epicsLock, () -> super.search(query, limit)));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration length, LocalDateTime notBefore) {
+        return read(scheduleLock, () -> super.findFreeSlot(length, notBefore));
+    }
+
+    /* Поиск места и добавление идут под одной блокировкой, иначе место могли бы занять между ними */
+    @Override
+    public Task addTaskAutoScheduled(Task task, LocalDateTime notBefore) {
+        return write(task instanceof Subtask ? epicsLock : tasksLock,
+                () -> write(scheduleLock, () -> super.addTaskAutoScheduled(task, notBefore)));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(scheduleLock, () -> super.getTasksBetween(from, to));
+    }
+
+    /* Обход представления расписания без блокировки небезопасен, поэтому задачи забираются страницами
+       по PAGE_SIZE под блокировкой чтения. Следующая страница начинается после последней отданной задачи,
+       так что изменения между страницами не приводят к повторам */
+    @Override
+    public Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to) {
+        prioritizedTasks.startingBetween(from, to); // проверка аргументов до первого обращения
+        return new Iterator<>() {
+            private Iterator<Task> page = Collections.emptyIterator();
+            private Task last;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (!page.hasNext() && !exhausted) {
+                    final List<Task> items = schedulePage(from, to, last);
+                    exhausted = items.size() < PAGE_SIZE;
+                    page = items.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                last = page.next();
+                return last;
+            }
+        };
+    }
+
+    /* Не более PAGE_SIZE задач расписания из [from, to), идущих после last (null - с начала) */
+    protected List<Task> schedulePage(LocalDateTime from, LocalDateTime to, Task last) {
+        return read(scheduleLock, () -> {
+            NavigableSet<Task> range = prioritizedTasks.startingBetween(from, to);
+            if (last != null)
+                range = range.tailSet(last, false);
+            return range.stream().limit(PAGE_SIZE).toList();
+        });
+    }
+
+    @Override
+    public List<Task> getTasksOverlapping(LocalDateTime from, LocalDateTime to) {
+        return read(scheduleLock, () -> super.getTasksOverlapping(from, to));
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return read(epicsLock, super::getEpics);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(epicsLock, super::getSubtasks);
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return read(epicsLock, () -> super.getEpics(afterId, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return read(epicsLock, () -> super.getSubtasks(afterId, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return read(epicsLock, () -> super.getSubtasksByEpicId(epicId));
+    }
+
+    @Override
+    public Status getTaskStatus(int id) {
+        return read(tasksLock, () -> super.getTaskStatus(id));
+    }
+
+    @Override
+    public Status getEpicStatus(int id) {
+        return read(epicsLock, () -> super.getEpicStatus(id));
+    }
+
+    @Override
+    public Status getSubtaskStatus(int id) {
+        return read(epicsLock, () -> super.getSubtaskStatus(id));
+    }
+
+    @Override
+    public int removeAllTasks() {
+        return write(tasksLock, () -> write(scheduleLock, super::removeAllTasks));
+    }
+
+    @Override
+    public int removeAllEpics() {
+        return write(epicsLock, () -> write(scheduleLock, super::removeAllEpics));
+    }
+
+    @Override
+    public int removeAllSubtasks() {
+        return write(epicsLock, () -> write(scheduleLock, super::removeAllSubtasks));
+    }
+
+    @Override
+    public Task removeTask(int id) {
+        return write(tasksLock, () -> isTimed(tasks.get(id))
+                ? write(scheduleLock, () -> super.removeTask(id))
+                : super.removeTask(id));
+    }
+
+    @Override
+    public Epic removeEpic(int id) {
+        return write(epicsLock, () -> write(scheduleLock, () -> super.removeEpic(id)));
+    }
+
+    @Override
+    public Subtask removeSubtask(int id) {
+        return write(epicsLock, () -> isTimed(subtasks.get(id))
+                ? write(scheduleLock, () -> super.removeSubtask(id))
+                : super.removeSubtask(id));
+    }
+
+    @Override
+    public Task updateTask(Task task) throws TaskTimeConflictException {
+        return write(tasksLock, () -> isTimed(task) || isTimed(tasks.get(task.getId()))
+                ? write(scheduleLock, () -> super.updateTask(task))
+                : super.updateTask(task));
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return write(epicsLock, () -> super.updateEpic(epic));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException {
+        return write(epicsLock, () -> isTimed(subtask) || isTimed(subtasks.get(subtask.getId()))
+                ? write(scheduleLock, () -> super.updateSubtask(subtask))
+                : super.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> batch) throws TaskTimeConflictException {
+        return write(tasksLock, () -> write(scheduleLock, () -> super.addTasks(batch)));
+    }
+
+    @Override
+    public List<Subtask> addSubtasks(Collection<Subtask> batch) throws TaskTimeConflictException {
+        return write(epicsLock, () -> write(scheduleLock, () -> super.addSubtasks(batch)));
+    }
+
+    /* В пачке могут быть элементы любого вида, поэтому берутся все блокировки */
+    @Override
+    public List<Task> updateTasks(Collection<? extends Task> batch) throws TaskTimeConflictException {
+        return write(tasksLock, () -> write(epicsLock, () -> write(scheduleLock, () -> super.updateTasks(batch))));
+    }
+
+    @Override
+    public List<Task> removeTasks(int... ids) {
+        return write(tasksLock, () -> write(epicsLock, () -> write(scheduleLock, () -> super.removeTasks(ids))));
+    }
+
+    /* Транзакция копится без блокировок, блокировки берутся только на время фиксации */
+    @Override
+    protected TaskTransaction.Result commit(TaskTransaction transaction) throws TaskTimeConflictException {
+        return write(tasksLock, () -> write(epicsLock, () -> write(scheduleLock, () -> super.commit(transaction))));
+    }
+
+    @Override
+    protected synchronized int nextId() {
+        return super.nextId();
+    }
+
+    private static boolean isTimed(Task task) {
+        return task != null && task.getStartTime() != null;
+    }
+
+    /* Все блокировки чтения сразу: состояние всех частей согласовано между собой, и ни одна задача
+       не меняется, пока держится результат action */
+    protected <R> R readAll(Supplier<R> action) {
+        return read(tasksLock, () -> read(epicsLock, () -> read(scheduleLock, action)));
+    }
+
+    private static <R> R read(ReadWriteLock lock, Supplier<R> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    private static <R> R write(ReadWriteLock lock, Supplier<R> action) {
+        return locked(lock.writeLock(), action);
+    }
+
+    private static <R> R locked(Lock lock, Supplier<R> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
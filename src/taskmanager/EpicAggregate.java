@@ -0,0 +1,103 @@
+package taskmanager;
+
+import intcollections.IntObjectMap;
+import tasks.Status;
+import tasks.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/* Накопленные значения по подзадачам одного эпика: счетчики статусов, суммарная длительность
+   и мультимножества времен начала и окончания. Изменение одной подзадачи стоит O(log k),
+   а не полный пересчет по всем k подзадачам эпика.
+   Для каждой подзадачи хранится то, что было учтено при ее добавлении: вычитаются именно эти
+   значения, поэтому агрегат не расходится, даже если хранимый объект подзадачи изменили на месте */
+class EpicAggregate {
+    private final int[] statusCounts = new int[Status.values().length];
+    private final IntObjectMap<Counted> counted = new IntObjectMap<>();
+    private Duration duration = Duration.ZERO;
+    private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+    private record Counted(Status status, Duration duration, LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
+    /* Учитывает подзадачу; если подзадача с таким id уже учтена, ее прежние значения заменяются */
+    void put(Subtask subtask) {
+        final Counted values = new Counted(statusOf(subtask), subtask.getDuration(),
+                subtask.getStartTime(), subtask.getEndTime());
+        final Counted previous = counted.put(subtask.getId(), values);
+        if (previous != null)
+            subtract(previous);
+        statusCounts[values.status().ordinal()]++;
+        if (values.duration() != null)
+            duration = duration.plus(values.duration());
+        if (values.startTime() != null)
+            startTimes.merge(values.startTime(), 1, Integer::sum);
+        if (values.endTime() != null)
+            endTimes.merge(values.endTime(), 1, Integer::sum);
+    }
+
+    void remove(int subtaskId) {
+        final Counted previous = counted.remove(subtaskId);
+        if (previous != null)
+            subtract(previous);
+    }
+
+    void clear() {
+        counted.clear();
+        Arrays.fill(statusCounts, 0);
+        duration = Duration.ZERO;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    boolean isEmpty() {
+        return counted.isEmpty();
+    }
+
+    /* NEW - если подзадач нет или все новые, DONE - если все выполнены, иначе IN_PROGRESS */
+    Status getStatus() {
+        final int size = counted.size();
+        if (size == 0)
+            return Status.NEW;
+        for (Status status : Status.values()) {
+            if (statusCounts[status.ordinal()] == size)
+                return status;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    private void subtract(Counted values) {
+        statusCounts[values.status().ordinal()]--;
+        if (values.duration() != null)
+            duration = duration.minus(values.duration());
+        if (values.startTime() != null)
+            decrement(startTimes, values.startTime());
+        if (values.endTime() != null)
+            decrement(endTimes, values.endTime());
+    }
+
+    private static Status statusOf(Subtask subtask) {
+        return subtask.getStatus() != null ? subtask.getStatus() : Status.UNDEFINED;
+    }
+
+    private static void decrement(NavigableMap<LocalDateTime, Integer> counts, LocalDateTime key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -8,181 +8,739 @@ import tasks.Subtask;
 import tasks.Task;
 import tasks.TaskType;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+/* close() дописывает отложенные изменения на диск и освобождает фоновые потоки и файл журнала.
+   Закрытым менеджером можно пользоваться дальше: они снова откроются при следующем изменении */
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
+
+    private static final char UPSERT = '+';
+    private static final char REMOVE = '-';
+    private static final char REMOVE_ALL = '!';
+    /* Записи пачки обрамляются строками GROUP_START и GROUP_END и применяются при загрузке только целиком */
+    private static final char GROUP_START = '{';
+    private static final char GROUP_END = '}';
+    /* Строка '#n' открывает записи поколения n. Поколение увеличивается при каждом сжатии журнала,
+       а снимок помнит последнее вошедшее в него поколение: при загрузке записи этого и более ранних
+       поколений пропускаются. Записи до первой такой строки (журнал старой версии) - поколение 0,
+       они записаны старым форматом без кавычек */
+    private static final char GENERATION = '#';
+    /* Отметка в конце заголовка CSV снимка: последнее поколение журнала, вошедшее в снимок */
+    private static final String JOURNAL_MARK = "; journal=";
+    /* Отметка формата в заголовке CSV снимка. Снимок без нее (и без отметки журнала) записан старой
+       версией без кавычек и читается по старым правилам */
+    private static final String FORMAT_MARK = "; format=";
+    private static final int CSV_FORMAT = 2;
 
     private final Path path;
+    private final Path journalPath;
+    private final Path oldJournalPath;
+    private final SavePolicy policy;
+    private final FileFormat format;
+    private final SnapshotWriter snapshotWriter;
+
+    private FileChannel journal;
+    private long journalSize;
+    private long generation; // поколение, в которое сейчас пишутся записи журнала
+    private boolean generationWritten; // строка поколения уже записана в текущий файл журнала
+    private boolean replaying;
+    private ExecutorService compactor;
+    private Future<?> compaction;
 
-    private FileBackedTaskManager(Path path) {
+    private FileBackedTaskManager(Path path, SavePolicy policy, FileFormat format) {
         super();
         this.path = path;
+        this.journalPath = Path.of(path + ".log");
+        this.oldJournalPath = Path.of(path + ".log.old");
+        this.policy = policy;
+        this.format = format;
+        this.snapshotWriter = switch (policy.mode()) {
+            case ASYNC, INTERVAL -> new SnapshotWriter(this::writeSnapshotDurably, policy);
+            default -> null;
+        };
     }
 
     @Override
-    public Task addTask(Task task) throws TaskTimeConflictException {
+    public synchronized Task addTask(Task task) throws TaskTimeConflictException {
         Task added = super.addTask(task);
-        save();
+        persistUpsert(added);
         return added;
     }
 
+    /* Добавление сохраняется переопределенными addTask/addSubtask */
+    @Override
+    public synchronized Task addTaskAutoScheduled(Task task, LocalDateTime notBefore) {
+        return super.addTaskAutoScheduled(task, notBefore);
+    }
+
     @Override
-    public Epic addEpic(Epic epic) {
+    public synchronized Epic addEpic(Epic epic) {
         Epic added = super.addEpic(epic);
-        save();
+        persistUpsert(added);
         return added;
     }
 
     @Override
-    public Subtask addSubtask(Subtask subtask) throws TaskTimeConflictException {
+    public synchronized Subtask addSubtask(Subtask subtask) throws TaskTimeConflictException {
         Subtask added = super.addSubtask(subtask);
-        save();
+        persistUpsert(added);
         return added;
     }
 
     @Override
-    public int removeAllTasks() {
+    public synchronized int removeAllTasks() {
         int result = super.removeAllTasks();
-        save();
+        persistRemoveAll(TaskType.TASK);
         return result;
     }
 
     @Override
-    public int removeAllEpics() {
+    public synchronized int removeAllEpics() {
         int result = super.removeAllEpics();
-        save();
+        persistRemoveAll(TaskType.EPIC);
         return result;
     }
 
     @Override
-    public int removeAllSubtasks() {
+    public synchronized int removeAllSubtasks() {
         int result = super.removeAllSubtasks();
-        save();
+        persistRemoveAll(TaskType.SUBTASK);
         return result;
     }
 
     @Override
-    public Task removeTask(int id) {
+    public synchronized Task removeTask(int id) {
         Task removed = super.removeTask(id);
-        save();
+        persistRemove(removed);
         return removed;
     }
 
     @Override
-    public Epic removeEpic(int id) {
+    public synchronized Epic removeEpic(int id) {
         Epic removed = super.removeEpic(id);
-        save();
+        persistRemove(removed);
         return removed;
     }
 
     @Override
-    public Subtask removeSubtask(int id) {
+    public synchronized Subtask removeSubtask(int id) {
         Subtask removed = super.removeSubtask(id);
-        save();
+        persistRemove(removed);
         return removed;
     }
 
     @Override
-    public Task updateTask(Task task) throws TaskTimeConflictException {
+    public synchronized Task updateTask(Task task) throws TaskTimeConflictException {
         Task updated = super.updateTask(task);
-        save();
+        persistUpsert(updated);
         return updated;
     }
 
     @Override
-    public Epic updateEpic(Epic epic) {
+    public synchronized Epic updateEpic(Epic epic) {
         Epic updated = super.updateEpic(epic);
-        save();
+        persistUpsert(updated);
         return updated;
     }
 
     @Override
-    public Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException {
+    public synchronized Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException {
         Subtask updated = super.updateSubtask(subtask);
-        save();
+        persistUpsert(updated);
         return updated;
     }
 
-    protected void save() {
-        final String title = "type, id, name, description, status, links, start_time, [end_time,] duration\n";
+    @Override
+    public synchronized List<Task> addTasks(Collection<Task> batch) throws TaskTimeConflictException {
+        List<Task> added = super.addTasks(batch);
+        persistUpserts(added);
+        return added;
+    }
 
-        try (FileOutputStream fileOutputStream = new FileOutputStream(path.toFile(), false)) {
+    @Override
+    public synchronized List<Subtask> addSubtasks(Collection<Subtask> batch) throws TaskTimeConflictException {
+        List<Subtask> added = super.addSubtasks(batch);
+        persistUpserts(added);
+        return added;
+    }
 
-            fileOutputStream.write(title.getBytes(StandardCharsets.UTF_8));
+    @Override
+    public synchronized List<Task> updateTasks(Collection<? extends Task> batch) throws TaskTimeConflictException {
+        List<Task> updated = super.updateTasks(batch);
+        persistUpserts(updated);
+        return updated;
+    }
 
-            for (Task item : tasks.values()) {
-                fileOutputStream.write(item.toLine().getBytes(StandardCharsets.UTF_8));
+    @Override
+    public synchronized List<Task> removeTasks(int... ids) {
+        List<Task> removed = super.removeTasks(ids);
+        if (!removed.isEmpty()) {
+            StringBuilder record = new StringBuilder().append(GROUP_START).append('\n');
+            for (Task item : removed) {
+                record.append(REMOVE).append(item.getId()).append('\n');
             }
-            for (Task item : epics.values()) {
-                fileOutputStream.write(item.toLine().getBytes(StandardCharsets.UTF_8));
+            persist(record.append(GROUP_END).append('\n').toString());
+        }
+        return removed;
+    }
+
+    /* Транзакция записывается в журнал одной пачкой */
+    @Override
+    protected synchronized TaskTransaction.Result commit(TaskTransaction transaction)
+            throws TaskTimeConflictException {
+        TaskTransaction.Result result = super.commit(transaction);
+        if (!result.upserted().isEmpty() || !result.removed().isEmpty()) {
+            StringBuilder record = new StringBuilder().append(GROUP_START).append('\n');
+            for (int id : result.removed()) {
+                record.append(REMOVE).append(id).append('\n');
             }
-            for (Task item : subtasks.values()) {
-                fileOutputStream.write(item.toLine().getBytes(StandardCharsets.UTF_8));
+            for (Task item : result.upserted()) {
+                record.append(UPSERT);
+                item.appendLine(record);
             }
+            persist(record.append(GROUP_END).append('\n').toString());
+        }
+        return result;
+    }
+
+    protected void save() {
+        try (FileOutputStream fileOutputStream = new FileOutputStream(path.toFile(), false)) {
+            writeSnapshot(fileOutputStream, generation);
+            // снимок содержит все изменения, журнал от прошлой работы в режиме журнала больше не нужен
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(oldJournalPath);
         } catch (IOException e) {
             throw new ManagerSaveException("Не удалось сохранить данные в файл '" + path.getFileName() + "'");
         }
     }
 
-    public static FileBackedTaskManager loadFromFile(Path path) {
+    /* Вызывается фоновым потоком в режимах ASYNC и INTERVAL. Под монитором менеджера (изменяющие
+       методы synchronized) только собираются неизменяемые версии задач - для неизмененных задач
+       это готовые объекты. Сериализация и запись на диск идут уже без блокировки */
+    private void writeSnapshotDurably() {
+        final List<Task> taskVersions;
+        final List<Epic> epicVersions;
+        final List<Subtask> subtaskVersions;
+        final long journal;
+        synchronized (this) {
+            journal = generation;
+            taskVersions = getTasks().stream().map(Task::snapshot).toList();
+            epicVersions = getEpics().stream().map(Epic::snapshot).toList();
+            subtaskVersions = getSubtasks().stream().map(Subtask::snapshot).toList();
+        }
 
-        FileBackedTaskManager manager = new FileBackedTaskManager(path);
-        try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile(), StandardCharsets.UTF_8))) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            writeSnapshot(buffer, taskVersions, epicVersions, subtaskVersions, journal);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось подготовить снимок задач");
+        }
 
-            reader.readLine(); // skip first line (header)
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                Task item = fromString(line);
-                manager.uniqueId = Math.max(manager.uniqueId, item.getId()); // Счетчик id не должен быть меньше id какого-либо таска
+        try {
+            replaceSnapshot(buffer.toByteArray());
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(oldJournalPath);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось сохранить данные в файл '" + path.getFileName() + "'");
+        }
+    }
 
-                if (item instanceof Epic) {
-                    manager.addEpicImpl((Epic) item);
-                } else if (item instanceof Subtask) {
-                    manager.addSubtaskImpl((Subtask) item);
-                } else {
-                    manager.addTaskImpl(item);
+    /* Снимок пишется во временный файл с fsync и атомарно подменяет основной файл. Каталог сбрасывается
+       на диск до и после переименования: только после этого можно удалять журналы, иначе после сбоя
+       на диске мог бы остаться прежний или пустой снимок без журнала */
+    private void replaceSnapshot(byte[] snapshot) throws IOException {
+        final Path tmp = Path.of(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(snapshot);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        syncDirectory();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    private void syncDirectory() {
+        final Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все системы позволяют открыть каталог (например, Windows) - там переименование и так надежно
+        }
+    }
+
+    /* Возвращает future, которое завершается, когда все сделанные до вызова изменения записаны
+       на диск с fsync. В режимах SYNC и JOURNAL данные уже записаны, остается только fsync */
+    public CompletableFuture<Void> flush() {
+        if (snapshotWriter != null)
+            return snapshotWriter.flush();
+
+        synchronized (this) {
+            try {
+                if (journal != null) {
+                    journal.force(false);
+                } else if (Files.exists(path)) {
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        channel.force(true);
+                    }
+                }
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(
+                        new ManagerSaveException("Не удалось сбросить данные на диск '" + path.getFileName() + "'"));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (snapshotWriter != null)
+            snapshotWriter.close(); // без монитора: поток записи сам берет его для сбора версий задач
+
+        synchronized (this) {
+            try {
+                awaitCompaction();
+            } finally {
+                if (compactor != null) {
+                    compactor.shutdown();
+                    compactor = null;
                 }
+                if (journal != null) {
+                    try {
+                        journal.force(false);
+                        journal.close();
+                    } catch (IOException e) {
+                        throw new ManagerSaveException("Не удалось закрыть журнал '" + journalPath.getFileName() + "'");
+                    } finally {
+                        journal = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /* Задачи каждого вида пишутся по возрастанию id */
+    private void writeSnapshot(OutputStream out, long journal) throws IOException {
+        writeSnapshot(out, getTasks(), getEpics(), getSubtasks(), journal);
+    }
+
+    /* journal - последнее поколение журнала, записи которого уже отражены в снимке */
+    private void writeSnapshot(OutputStream out, Collection<Task> tasks, Collection<Epic> epics,
+                               Collection<Subtask> subtasks, long journal) throws IOException {
+        if (format == FileFormat.BINARY) {
+            TaskBinaryFormat.write(Channels.newChannel(out), tasks, epics, subtasks, journal);
+            return;
+        }
+
+        final String title = "type, id, name, description, status, links, start_time, [end_time,] duration"
+                + FORMAT_MARK + CSV_FORMAT + JOURNAL_MARK + journal + "\n";
+
+        TaskLineWriter writer = new TaskLineWriter(out);
+        writer.write(title);
+        for (Task item : tasks) {
+            writer.write(item);
+        }
+        for (Task item : epics) {
+            writer.write(item);
+        }
+        for (Task item : subtasks) {
+            writer.write(item);
+        }
+        writer.flush();
+    }
+
+    private void persistUpsert(Task item) {
+        if (item != null)
+            persist(UPSERT + item.toLine());
+    }
+
+    /* Вся пачка - одна запись журнала и одно сохранение снимка */
+    private void persistUpserts(List<? extends Task> items) {
+        if (items.isEmpty())
+            return;
+        StringBuilder record = new StringBuilder().append(GROUP_START).append('\n');
+        for (Task item : items) {
+            record.append(UPSERT);
+            item.appendLine(record);
+        }
+        persist(record.append(GROUP_END).append('\n').toString());
+    }
+
+    private void persistRemove(Task item) {
+        if (item != null)
+            persist(REMOVE + item.getId().toString() + "\n");
+    }
+
+    private void persistRemoveAll(TaskType type) {
+        persist(REMOVE_ALL + type.name() + "\n");
+    }
+
+    private void persist(String record) {
+        if (replaying)
+            return;
+        switch (policy.mode()) {
+            case SYNC -> save();
+            case ASYNC, INTERVAL -> snapshotWriter.changed();
+            case JOURNAL -> appendToJournal(record);
+        }
+    }
+
+    private void appendToJournal(String record) {
+        if (!generationWritten)
+            record = GENERATION + Long.toString(generation) + "\n" + record;
+        final byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (journal == null) {
+                journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                journalSize = journal.size();
             }
-            return manager;
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journalSize += bytes.length;
+            generationWritten = true;
         } catch (IOException e) {
-            //noinspection CallToPrintStackTrace
-            e.printStackTrace();
-            throw new RuntimeException("Произошла ошибка чтения задач из файла '" + path.getFileName() + "'");
+            throw new ManagerSaveException("Не удалось записать изменения в журнал '" + journalPath.getFileName() + "'");
         }
+
+        if (journalSize >= policy.journalThreshold())
+            compact();
     }
 
-    private static Task fromString(String line) throws LoadTaskException {
-        List<String> parts = Arrays.stream(line.split(",")).map(String::trim).collect(Collectors.toList());
+    /* Снимок состояния строится в вызывающем потоке (менеджер не потокобезопасен), текущий журнал
+       переименовывается, новые записи идут в новый журнал, а запись снимка на диск и удаление
+       старого журнала выполняются в фоне */
+    private void compact() {
+        awaitCompaction();
 
-        if (parts.isEmpty() || line.isBlank())
-            throw new LoadTaskException("Неверный формат строки для десериализации задачи");
+        final byte[] snapshot;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeSnapshot(buffer, generation);
+            snapshot = buffer.toByteArray();
 
-        TaskType taskType;
+            journal.close();
+            journal = null;
+            if (Files.exists(oldJournalPath)) {
+                // предыдущее сжатие не удалось - старый журнал еще не отражен в снимке
+                Files.write(oldJournalPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, oldJournalPath);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось сжать журнал '" + journalPath.getFileName() + "'");
+        }
+        generation++;
+        generationWritten = false;
+
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(() -> {
+            replaceSnapshot(snapshot);
+            Files.delete(oldJournalPath);
+            return null;
+        });
+    }
+
+    void awaitCompaction() {
+        if (compaction == null)
+            return;
         try {
-            taskType = TaskType.valueOf(parts.get(0));
+            compaction.get();
+        } catch (ExecutionException e) {
+            // старый журнал остался на диске и будет учтен при следующем сжатии или загрузке
+            throw new ManagerSaveException("Не удалось сжать журнал в файл '" + path.getFileName() + "'");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            compaction = null;
+        }
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path path) {
+        return loadFromFile(path, SavePolicy.sync());
+    }
+
+    /* Формат существующего файла определяется автоматически, и файл дальше пишется в том же формате */
+    public static FileBackedTaskManager loadFromFile(Path path, SavePolicy policy) {
+        return loadFromFile(path, policy, TaskBinaryFormat.isBinary(path) ? FileFormat.BINARY : FileFormat.CSV);
+    }
+
+    /* В режиме JOURNAL каждое изменение дописывает одну запись в файл '<path>.log',
+       при загрузке снимок дополняется записями журнала. format задает формат, в котором файл
+       будет записываться; читается файл в том формате, в котором он сохранен */
+    public static FileBackedTaskManager loadFromFile(Path path, SavePolicy policy, FileFormat format) {
+        return loadFromFile(path, policy, format, ForkJoinPool.commonPool());
+    }
+
+    /* Большой CSV снимок разбирается кусками на pool, null - всегда читать последовательно */
+    static FileBackedTaskManager loadFromFile(Path path, SavePolicy policy, FileFormat format, ForkJoinPool pool) {
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(path, policy, format);
+        long included = -1; // снимок без отметки журнала (старой версии) не отражает ни одной записи
+        if (TaskBinaryFormat.isBinary(path)) {
+            try {
+                included = TaskBinaryFormat.read(path, manager::load);
+            } catch (IOException e) {
+                throw new LoadTaskException("Произошла ошибка чтения задач из файла '" + path.getFileName() + "'");
+            }
+        } else if (Files.exists(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                TaskLineReader reader = new TaskLineReader(channel);
+                reader.setLegacy(true); // заголовок читается до первого перевода строки в любом формате
+                boolean legacy = true;
+                if (reader.skipLine()) {
+                    final String header = reader.lineText();
+                    included = includedJournal(header);
+                    legacy = isLegacyHeader(header);
+                }
+                reader.setLegacy(legacy);
+                if (!legacy && ParallelTaskLoader.shouldUse(channel.size(), pool)) {
+                    manager.loadChunks(ParallelTaskLoader.read(channel, pool, ParallelTaskLoader.DEFAULT_CHUNK_SIZE));
+                } else {
+                    while (reader.nextRecord()) {
+                        manager.load(reader.readTask());
+                    }
+                }
+            } catch (IOException e) {
+                throw new LoadTaskException("Произошла ошибка чтения задач из файла '" + path.getFileName() + "'");
+            }
+        }
+
+        /* Если процесс остановился между записью нового снимка и удалением старого журнала, записи
+           старого журнала уже есть в снимке. Применять их повторно нельзя: поверх более новых версий
+           задач они могут конфликтовать по времени. Поэтому применяются только записи поколений
+           новее отмеченного в снимке */
+        final long replayed = Math.max(manager.replay(manager.oldJournalPath, included),
+                manager.replay(manager.journalPath, included));
+        manager.generation = Math.max(included, replayed) + 1;
+        return manager;
+    }
+
+    private static long includedJournal(String header) {
+        final int mark = header.lastIndexOf(JOURNAL_MARK);
+        if (mark < 0)
+            return -1;
+        try {
+            return Long.parseLong(header.substring(mark + JOURNAL_MARK.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new LoadTaskException("Неверный заголовок файла задач: " + header);
+        }
+    }
+
+    private static boolean isLegacyHeader(String header) {
+        final int mark = header.indexOf(FORMAT_MARK);
+        if (mark < 0)
+            return !header.contains(JOURNAL_MARK);
+        final int from = mark + FORMAT_MARK.length();
+        int to = from;
+        while (to < header.length() && Character.isDigit(header.charAt(to))) {
+            to++;
+        }
+        if (!header.substring(from, to).equals(Integer.toString(CSV_FORMAT)))
+            throw new LoadTaskException("Неподдерживаемый формат файла задач: " + header);
+        return false;
+    }
+
+    private void load(Task item) {
+        uniqueId = Math.max(uniqueId, item.getId()); // Счетчик id не должен быть меньше id какого-либо таска
+
+        if (item instanceof Epic) {
+            addEpicImpl((Epic) item);
+        } else if (item instanceof Subtask) {
+            addSubtaskImpl((Subtask) item);
+        } else {
+            addTaskImpl(item);
+        }
+    }
+
+    /* Сборка разобранных параллельно кусков: сначала все эпики, чтобы подзадачи из любого куска
+       нашли свой эпик, затем остальные задачи в порядке файла */
+    private void loadChunks(List<List<Task>> chunks) {
+        for (List<Task> chunk : chunks) {
+            for (Task item : chunk) {
+                if (item instanceof Epic)
+                    load(item);
+            }
+        }
+        for (List<Task> chunk : chunks) {
+            for (Task item : chunk) {
+                if (!(item instanceof Epic))
+                    load(item);
+            }
+        }
+    }
+
+    /* Применяет записи поколений новее included, возвращает последнее встреченное поколение */
+    private long replay(Path journalFile, long included) {
+        if (!Files.exists(journalFile))
+            return 0;
+
+        long current = 0;
+        replaying = true;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            TaskLineReader reader = new TaskLineReader(channel);
+            reader.setLegacy(true);
+            List<Task> groupUpserts = null;
+            List<Integer> groupRemoves = null;
+            long groupOffset = 0;
+            while (reader.nextRecord()) {
+                final char prefix = reader.readPrefix();
+                final boolean inGroup = groupUpserts != null;
+                final boolean applied = current > included;
+                switch (prefix) {
+                    case GENERATION -> {
+                        if (inGroup)
+                            throw new LoadTaskException("Неверный формат записи журнала: " + prefix);
+                        current = reader.readLong();
+                        reader.setLegacy(false);
+                    }
+                    case GROUP_START -> {
+                        groupUpserts = new ArrayList<>();
+                        groupRemoves = new ArrayList<>();
+                        groupOffset = reader.lineOffset();
+                    }
+                    case GROUP_END -> {
+                        if (!inGroup)
+                            throw new LoadTaskException("Неверный формат записи журнала: " + prefix);
+                        if (applied)
+                            replayGroup(groupUpserts, groupRemoves);
+                        groupUpserts = null;
+                        groupRemoves = null;
+                    }
+                    case UPSERT -> {
+                        final Task item = reader.readTask();
+                        if (!applied)
+                            uniqueId = Math.max(uniqueId, item.getId()); // id удаленных задач не выдаются снова
+                        else if (inGroup)
+                            groupUpserts.add(item);
+                        else
+                            replayUpsert(item);
+                    }
+                    case REMOVE -> {
+                        final int id = reader.readInt();
+                        if (applied && inGroup)
+                            groupRemoves.add(id);
+                        else if (applied)
+                            replayRemove(id);
+                    }
+                    case REMOVE_ALL -> {
+                        final TaskType type = reader.readTaskType();
+                        if (applied)
+                            replayRemoveAll(type);
+                    }
+                    default -> throw new LoadTaskException("Неверный формат записи журнала: " + prefix);
+                }
+            }
+            /* Пачка без закрывающей записи - процесс остановился во время ее записи. Она не применяется
+               и отрезается, чтобы следующие записи журнала не оказались внутри нее */
+            if (groupUpserts != null)
+                channel.truncate(groupOffset);
+        } catch (IOException e) {
+            throw new LoadTaskException("Произошла ошибка чтения журнала '" + journalFile.getFileName() + "'");
         } catch (IllegalArgumentException e) {
-            throw new LoadTaskException("Неподдерживаемый тип задачи " + parts.get(0));
+            throw new LoadTaskException("Неверный формат записи журнала в файле '" + journalFile.getFileName() + "'");
+        } finally {
+            replaying = false;
         }
+        return current;
+    }
 
-        parts.remove(0);
-        switch (taskType) {
-            case TASK -> {
-                return Task.fromLine(parts);
+    private void replayUpsert(Task item) {
+        uniqueId = Math.max(uniqueId, item.getId());
+
+        if (item instanceof Epic epic) {
+            if (epics.containsKey(epic.getId())) {
+                updateEpic(epic);
+            } else {
+                addEpicImpl(epic);
             }
-            case EPIC -> {
-                return Epic.fromLine(parts);
+        } else if (item instanceof Subtask subtask) {
+            if (subtasks.containsKey(subtask.getId())) {
+                updateSubtask(subtask);
+            } else if (epics.containsKey(subtask.getEpicId())) {
+                addSubtaskImpl(subtask);
             }
-            case SUBTASK -> {
-                return Subtask.fromLine(parts);
+        } else {
+            if (tasks.containsKey(item.getId())) {
+                updateTask(item);
+            } else {
+                addTaskImpl(item);
             }
-            default -> throw new LoadTaskException("Неподдерживаемый тип задачи " + taskType);
+        }
+    }
+
+    /* Пачка применяется пакетными операциями: по отдельности ее изменения могли бы конфликтовать
+       по времени со старыми версиями других задач той же пачки */
+    /* Удаления применяются первыми: в пачке транзакции освободившееся время может занять другая задача.
+       Новые эпики добавляются до обновлений: подзадачу могли перенести в эпик, созданный той же пачкой */
+    private void replayGroup(List<Task> upserts, List<Integer> removes) {
+        removeTasks(removes.stream().mapToInt(Integer::intValue).toArray());
+        final List<Task> updates = new ArrayList<>();
+        for (Task item : upserts) {
+            uniqueId = Math.max(uniqueId, item.getId());
+            if (findTask(item.getId()) != null)
+                updates.add(item);
+            else if (item instanceof Epic epic)
+                addEpicImpl(epic);
+        }
+        updateTasks(updates);
+        for (Task item : upserts) {
+            if (findTask(item.getId()) == null)
+                replayUpsert(item);
+        }
+    }
+
+    private void replayRemove(int id) {
+        Task item = findTask(id);
+        if (item instanceof Epic) {
+            removeEpic(id);
+        } else if (item instanceof Subtask) {
+            removeSubtask(id);
+        } else if (item != null) {
+            removeTask(id);
+        }
+    }
+
+    private void replayRemoveAll(TaskType type) {
+        switch (type) {
+            case TASK -> removeAllTasks();
+            case EPIC -> removeAllEpics();
+            case SUBTASK -> removeAllSubtasks();
+            default -> throw new LoadTaskException("Неподдерживаемый тип задачи " + type);
         }
     }
 }
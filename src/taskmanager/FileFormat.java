@@ -0,0 +1,6 @@
+package taskmanager;
+
+public enum FileFormat {
+    CSV,
+    BINARY
+}
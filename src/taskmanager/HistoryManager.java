@@ -2,6 +2,7 @@ package taskmanager;
 
 import tasks.Task;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface HistoryManager {
@@ -9,5 +10,25 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    /* afterId для первой страницы истории: id задач начинаются с 1 */
+    int FIRST_PAGE = 0;
+
     List<Task> getHistory();
+
+    /* Не более limit просмотров, следующих за просмотром задачи afterId (FIRST_PAGE - с самого старого).
+       Если задачи afterId в истории больше нет, курсор устарел и страница пустая: начинать заново
+       с самого старого просмотра, молча повторяя уже выданное, нельзя. Повторный просмотр переносит
+       курсор в конец, и дальше идут только более поздние просмотры.
+       Реализации отдают страницу за O(limit), эта - через полную копию истории */
+    default List<Task> getHistory(int afterId, int limit) {
+        final List<Task> history = getHistory();
+        int from = afterId == FIRST_PAGE ? 0 : history.size();
+        for (int i = 0; afterId != FIRST_PAGE && i < history.size(); i++) {
+            if (history.get(i).getId() == afterId) {
+                from = i + 1;
+                break;
+            }
+        }
+        return new ArrayList<>(history.subList(from, Math.min(history.size(), from + Math.max(limit, 0))));
+    }
 }
@@ -1,6 +1,7 @@
 package taskmanager;
 
 import doublelinkedlist.DoubleLinkedList;
+import intcollections.IntObjectMap;
 import tasks.Task;
 
 import java.util.List;
@@ -9,14 +10,14 @@ public class InMemoryHistoryManager implements HistoryManager {
     private final DoubleLinkedList<Integer, Task> historyList;
 
     public InMemoryHistoryManager() {
-        historyList = new DoubleLinkedList<>();
+        historyList = new DoubleLinkedList<>(new IntObjectMap<>());
     }
 
     @Override
     public void add(Task task) {
         if (task == null)
             return;
-        historyList.add(task.getId(), task.clone());
+        historyList.add(task.getId(), task.snapshot());
     }
 
     @Override
@@ -28,4 +29,9 @@ public class InMemoryHistoryManager implements HistoryManager {
     public List<Task> getHistory() {
         return historyList.getElements();
     }
+
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        return afterId == FIRST_PAGE ? historyList.getFirstElements(limit) : historyList.getElementsAfter(afterId, limit);
+    }
 }
@@ -1,40 +1,64 @@
 package taskmanager;
 
 import exception.TaskTimeConflictException;
+import intcollections.IntMap;
+import intcollections.IntObjectMap;
+import intcollections.IntSet;
+import intcollections.IntSortedSet;
 import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
+import timeindex.TimeIndex;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 public class InMemoryTaskManager implements TaskManager {
     protected final HistoryManager historyManager;
     protected int uniqueId;
-    protected final Map<Integer, Task> tasks;
-    protected Set<Task> prioritizedTasks;
-    protected final Map<Integer, Epic> epics;
-    protected final Map<Integer, Subtask> subtasks;
-
-    protected static Comparator<Task> comparatorByTime = (o1, o2) -> {
-        LocalDateTime endTime1 = o1.getEndTime();
-        if (endTime1.isBefore(o2.getStartTime()))
-            return -1;
-        if (o1.getStartTime().isAfter(o2.getEndTime()))
-            return 1;
-        return 0;
-    };
+    protected final IntMap<Task> tasks;
+    protected final TimeIndex prioritizedTasks;
+    protected final IntMap<Epic> epics;
+    protected final IntMap<Subtask> subtasks;
+    private final IntMap<EpicAggregate> epicAggregates;
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    /* id по возрастанию для постраничной выдачи */
+    private final IntSortedSet taskIds = new IntSortedSet();
+    private final IntSortedSet epicIds = new IntSortedSet();
+    private final IntSortedSet subtaskIds = new IntSortedSet();
+    private boolean scheduleDeferred;
+
+    /* Издатель создается при первой подписке. Пока подписчиков нет, события не создаются вовсе */
+    private volatile SubmissionPublisher<TaskChange> changes;
+    private final Object changesLock = new Object();
+    private long changeSequence;
 
     public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new IntObjectMap<>(), new IntObjectMap<>(), new IntObjectMap<>());
+    }
+
+    /* Для наследников, которые хранят задачи не в куче, а, например, в файле, отображенном в память */
+    protected InMemoryTaskManager(HistoryManager historyManager, IntMap<Task> tasks,
+                                  IntMap<Epic> epics, IntMap<Subtask> subtasks) {
+        this.historyManager = historyManager;
         uniqueId = 0;
-        tasks = new HashMap<>();
-        epics = new HashMap<>();
-        subtasks = new HashMap<>();
-        historyManager = Managers.getDefaultHistory();
-        prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        epicAggregates = new IntObjectMap<>();
+        prioritizedTasks = new TimeIndex();
     }
 
     @Override
@@ -50,10 +74,20 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected Task addTaskImpl(Task task) {
         tasks.put(task.getId(), task);
-        tryAddToPrioritizedTasks(task);
+        publish(TaskChange.Kind.ADDED, task);
+        indexTask(task);
         return task;
     }
 
+    /* index* - учет уже сохраненного элемента во вспомогательных структурах (расписание, эпики).
+       Отделены от add*Impl, чтобы наследник мог восстановить индексы по своему хранилищу */
+    protected void indexTask(Task task) {
+        statusIndex.put(TaskType.TASK, task.getId(), task.getStatus());
+        searchIndex.put(task);
+        taskIds.add(task.getId());
+        tryAddToPrioritizedTasks(task);
+    }
+
     @Override
     public Epic addEpic(Epic epic) {
         if (epic == null)
@@ -63,12 +97,21 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     protected Epic addEpicImpl(Epic epic) {
-        epic.removeAllSubtasks(); // для консистентности
-        epic.setStatus(Status.NEW);
         epics.put(epic.getId(), epic);
+        indexEpic(epic);
+        publish(TaskChange.Kind.ADDED, epic);
         return epic;
     }
 
+    protected void indexEpic(Epic epic) {
+        epic.removeAllSubtasks(); // для консистентности
+        epic.setStatus(Status.NEW);
+        statusIndex.put(TaskType.EPIC, epic.getId(), Status.NEW);
+        searchIndex.put(epic);
+        epicIds.add(epic.getId());
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+    }
+
     @Override
     public Subtask addSubtask(Subtask subtask) throws TaskTimeConflictException {
         if (subtask == null)
@@ -85,13 +128,26 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     protected Subtask addSubtaskImpl(Subtask subtask) {
-        final Epic epic = epics.get(subtask.getEpicId());
         subtasks.put(subtask.getId(), subtask);
+        publish(TaskChange.Kind.ADDED, subtask);
+        indexSubtask(subtask);
+        return subtask;
+    }
+
+    protected void indexSubtask(Subtask subtask) {
+        linkSubtask(subtask);
+        refreshEpic(epics.get(subtask.getEpicId()));
+    }
+
+    /* Учет подзадачи без пересчета статуса и времени эпика - пачка пересчитывает каждый эпик один раз */
+    private void linkSubtask(Subtask subtask) {
+        final Epic epic = epics.get(subtask.getEpicId());
         epic.addSubtask(subtask.getId());
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
+        epicAggregates.get(epic.getId()).put(subtask);
+        statusIndex.put(TaskType.SUBTASK, subtask.getId(), subtask.getStatus());
+        searchIndex.put(subtask);
+        subtaskIds.add(subtask.getId());
         tryAddToPrioritizedTasks(subtask);
-        return subtask;
     }
 
     @Override
@@ -115,9 +171,26 @@ public class InMemoryTaskManager implements TaskManager {
         return subtask;
     }
 
+    /* Поиск для внутренних нужд: в отличие от getTask/getEpic/getSubtask не попадает в историю */
+    protected Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null)
+            return task;
+        Epic epic = epics.get(id);
+        if (epic != null)
+            return epic;
+        return subtasks.get(id);
+    }
+
+    /* Списки отдаются по возрастанию id: порядок обхода хеш-таблиц id -> задача случаен */
     @Override
     public List<Task> getTasks() {
-        return tasks.values().stream().toList();
+        return ordered(tasks, taskIds.toArray());
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return page(tasks, taskIds, afterId, limit);
     }
 
     @Override
@@ -125,19 +198,122 @@ public class InMemoryTaskManager implements TaskManager {
         return prioritizedTasks.stream().toList();
     }
 
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        if (type == TaskType.UNDEFINED)
+            return 0;
+        return statusIndex.count(type, status);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        if (type == TaskType.UNDEFINED)
+            return new ArrayList<>();
+        final IntMap<? extends Task> items = switch (type) {
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+            default -> tasks;
+        };
+        return ordered(items, sortedIds(statusIndex.ids(type, status)));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        final List<Integer> ids = searchIndex.search(query, limit);
+        final List<Task> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            result.add(findTask(id));
+        }
+        return result;
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration length, LocalDateTime notBefore) {
+        return prioritizedTasks.findFreeSlot(length, notBefore);
+    }
+
+    /* Найденное место свободно, поэтому конфликт при добавлении невозможен */
+    @Override
+    public Task addTaskAutoScheduled(Task task, LocalDateTime notBefore) {
+        if (task == null)
+            return null;
+        if (task.getDuration() == null)
+            throw new IllegalArgumentException("У задачи '" + task.getName() + "' не задана длительность");
+        if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId()))
+            return null;
+        if (task instanceof Epic)
+            throw new IllegalArgumentException("Время эпика рассчитывается по его подзадачам");
+
+        task.setStartTime(findFreeSlot(task.getDuration(), notBefore));
+        return task instanceof Subtask subtask ? addSubtask(subtask) : addTask(task);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return List.copyOf(prioritizedTasks.startingBetween(from, to));
+    }
+
+    @Override
+    public Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.startingBetween(from, to).iterator();
+    }
+
+    @Override
+    public List<Task> getTasksOverlapping(LocalDateTime from, LocalDateTime to) {
+        final List<Task> result = new ArrayList<>();
+        prioritizedTasks.overlapping(from, to).forEachRemaining(result::add);
+        return result;
+    }
+
     @Override
     public List<Epic> getEpics() {
-        return epics.values().stream().toList();
+        return ordered(epics, epicIds.toArray());
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return subtasks.values().stream().toList();
+        return ordered(subtasks, subtaskIds.toArray());
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return page(epics, epicIds, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return page(subtasks, subtaskIds, afterId, limit);
+    }
+
+    private static <T extends Task> List<T> page(IntMap<T> items, IntSortedSet ids, int afterId, int limit) {
+        return ordered(items, ids.after(afterId, limit));
+    }
+
+    private static <T extends Task> List<T> ordered(IntMap<? extends T> items, int[] ids) {
+        final List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            final T item = items.get(id);
+            if (item != null)
+                result.add(item);
+        }
+        return result;
+    }
+
+    private static int[] sortedIds(IntSet set) {
+        final int[] ids = new int[set.size()];
+        final int[] count = {0};
+        set.forEachInt(id -> ids[count[0]++] = id);
+        Arrays.sort(ids);
+        return ids;
     }
 
     @Override
     public List<Subtask> getSubtasksByEpicId(int epicId) {
-        return subtasks.values().stream().filter(c -> c.getEpicId() == epicId).collect(Collectors.toList());
+        final Epic epic = epics.get(epicId);
+        if (epic == null)
+            return new ArrayList<>();
+
+        return ordered(subtasks, sortedIds(epic.getSubtasks()));
     }
 
 
@@ -163,9 +339,13 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public int removeAllTasks() {
         int count = tasks.size();
+        publishAll(TaskChange.Kind.REMOVED, tasks);
         prioritizedTasks.removeIf(task -> task.getClass().equals(Task.class));
-        tasks.keySet().forEach(historyManager::remove);
+        tasks.forEachKey(historyManager::remove);
+        tasks.forEachKey(searchIndex::remove);
         tasks.clear();
+        statusIndex.clear(TaskType.TASK);
+        taskIds.clear();
 
         return count;
     }
@@ -173,24 +353,38 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public int removeAllEpics() {
         int count = epics.size();
+        publishAll(TaskChange.Kind.REMOVED, subtasks);
+        publishAll(TaskChange.Kind.REMOVED, epics);
 
         prioritizedTasks.removeIf(task -> task.getClass().equals(Subtask.class));
-        epics.keySet().forEach(historyManager::remove);
-        subtasks.keySet().forEach(historyManager::remove);
+        epics.forEachKey(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        epics.forEachKey(searchIndex::remove);
+        subtasks.forEachKey(searchIndex::remove);
 
         epics.clear();
         subtasks.clear();
+        epicAggregates.clear();
+        statusIndex.clear(TaskType.EPIC);
+        epicIds.clear();
+        statusIndex.clear(TaskType.SUBTASK);
+        subtaskIds.clear();
         return count;
     }
 
     @Override
     public int removeAllSubtasks() {
         int count = subtasks.size();
+        publishAll(TaskChange.Kind.REMOVED, subtasks);
         prioritizedTasks.removeIf(task -> task.getClass().equals(Subtask.class));
-        subtasks.keySet().forEach(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(searchIndex::remove);
         subtasks.clear();
+        statusIndex.clear(TaskType.SUBTASK);
+        subtaskIds.clear();
         for (Epic e : epics.values()) {
             e.removeAllSubtasks();
+            epicAggregates.get(e.getId()).clear();
             updateEpicStatus(e);
             updateEpicTime(e);
         }
@@ -200,39 +394,73 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Task removeTask(int id) {
+        return removeTaskImpl(id);
+    }
+
+    private Task removeTaskImpl(int id) {
         Task removed = tasks.remove(id);
         if (removed == null)
             return null;
 
         prioritizedTasks.remove(removed);
         historyManager.remove(removed.getId());
+        statusIndex.remove(TaskType.TASK, id);
+        taskIds.remove(id);
+        searchIndex.remove(id);
+        publish(TaskChange.Kind.REMOVED, removed);
         return removed;
     }
 
     @Override
     public Epic removeEpic(int id) {
+        return removeEpicImpl(id);
+    }
+
+    private Epic removeEpicImpl(int id) {
         Epic removed = epics.remove(id);
         if (removed == null)
             return null;
 
         historyManager.remove(removed.getId());
-        removed.getSubtasks().forEach(historyManager::remove);
-        prioritizedTasks.removeIf(task -> removed.getSubtasks().contains(task.getId()));
-        subtasks.values().removeIf(c -> c.getEpicId() == id);
+        epicAggregates.remove(id);
+        statusIndex.remove(TaskType.EPIC, id);
+        epicIds.remove(id);
+        searchIndex.remove(id);
+        removed.getSubtasks().forEachInt(subtaskId -> {
+            Subtask subtask = subtasks.remove(subtaskId);
+            statusIndex.remove(TaskType.SUBTASK, subtaskId);
+            subtaskIds.remove(subtaskId);
+            searchIndex.remove(subtaskId);
+            if (subtask != null) {
+                prioritizedTasks.remove(subtask);
+                publish(TaskChange.Kind.REMOVED, subtask);
+            }
+            historyManager.remove(subtaskId);
+        });
+        publish(TaskChange.Kind.REMOVED, removed);
         return removed;
     }
 
     @Override
     public Subtask removeSubtask(int id) {
+        return removeSubtaskImpl(id);
+    }
+
+    private Subtask removeSubtaskImpl(int id) {
         Subtask removed = subtasks.remove(id);
         if (removed == null)
             return null;
 
         prioritizedTasks.remove(removed);
         historyManager.remove(id);
+        statusIndex.remove(TaskType.SUBTASK, id);
+        subtaskIds.remove(id);
+        searchIndex.remove(id);
+        publish(TaskChange.Kind.REMOVED, removed);
         Epic epic = epics.get(removed.getEpicId());
         if (epic != null) {
             epic.removeSubtask(id);
+            epicAggregates.get(epic.getId()).remove(id);
             updateEpicStatus(epic);
             updateEpicTime(epic);
         }
@@ -243,18 +471,28 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Task updateTask(Task task) throws TaskTimeConflictException {
         checkTaskTimeCollision(task);
+        return updateTaskImpl(task);
+    }
 
+    private Task updateTaskImpl(Task task) {
         Task old = tasks.replace(task.getId(), task);
         if (old == null) {
             return null;
         }
         prioritizedTasks.remove(old);
         tryAddToPrioritizedTasks(task);
+        statusIndex.put(TaskType.TASK, task.getId(), task.getStatus());
+        searchIndex.put(task);
+        publish(TaskChange.Kind.UPDATED, task);
         return task; // return object in actual state
     }
 
     @Override
     public Epic updateEpic(Epic epic) {
+        return updateEpicImpl(epic);
+    }
+
+    private Epic updateEpicImpl(Epic epic) {
         if (epic == null)
             return null;
 
@@ -263,15 +501,21 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
 
         if (epic.equals(old)) {
+            if (epic == old) { // изменен на месте: записываем заново
+                epics.replace(epic.getId(), epic);
+                searchIndex.put(epic);
+            }
             return old;
         }
 
         /* We don't update epic's list of subtasks
         all changes in subtasks must be using addSubtask/removeSubtask */
         epic.removeAllSubtasks();
-        old.getSubtasks().forEach(epic::addSubtask);
+        old.getSubtasks().forEachInt(epic::addSubtask);
 
         epics.replace(epic.getId(), epic);
+        searchIndex.put(epic);
+        publish(TaskChange.Kind.UPDATED, epic);
         updateEpicStatus(epic);
         updateEpicTime(epic);
         return epic;
@@ -280,9 +524,18 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException {
         checkTaskTimeCollision(subtask);
+        return updateSubtaskImpl(subtask);
+    }
 
+    private Subtask updateSubtaskImpl(Subtask subtask) {
         final int id = subtask.getId();
         if (subtask.equals(subtasks.get(id))) {
+            if (subtask == subtasks.get(id)) {
+                final int previousEpicId = recount(subtask);
+                if (previousEpicId != subtask.getEpicId())
+                    refreshEpic(epics.get(previousEpicId));
+                refreshEpic(epics.get(subtask.getEpicId()));
+            }
             return subtasks.get(id);
         }
 
@@ -291,14 +544,20 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
 
-        /* Мы не обрабатываем ситуацию, когда у подзадачи меняется родительский эпик.
-        Обновляем все остальные данные, а id эпика остается прежним */
-        if (subtask.getEpicId() != old.getEpicId()) {
+        /* Подзадачу можно перенести в другой эпик. Если эпика с новым id нет, подзадача остается
+        в прежнем эпике */
+        if (subtask.getEpicId() != old.getEpicId() && !epics.containsKey(subtask.getEpicId())) {
             subtask.setEpicId(old.getEpicId());
         }
 
         subtasks.replace(id, subtask);
+        statusIndex.put(TaskType.SUBTASK, id, subtask.getStatus());
+        searchIndex.put(subtask);
+        publish(TaskChange.Kind.UPDATED, subtask);
+        if (subtask.getEpicId() != old.getEpicId())
+            refreshEpic(moveSubtask(subtask, old.getEpicId()));
         Epic epic = epics.get(subtask.getEpicId());
+        epicAggregates.get(epic.getId()).put(subtask);
         updateEpicStatus(epic);
         updateEpicTime(epic);
         prioritizedTasks.remove(old);
@@ -307,71 +566,357 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public List<Task> getHistory() {
-        return historyManager.getHistory();
+    public List<Task> addTasks(Collection<Task> batch) throws TaskTimeConflictException {
+        final List<Task> accepted = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (task != null)
+                accepted.add(task);
+        }
+        checkTaskTimeCollisions(accepted, id -> false);
+
+        for (Task task : accepted) {
+            task.setId(nextId());
+            addTaskImpl(task);
+        }
+        return accepted;
     }
 
-    private Status calculateEpicStatus(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
-            return Status.NEW;
+    @Override
+    public List<Subtask> addSubtasks(Collection<Subtask> batch) throws TaskTimeConflictException {
+        final List<Subtask> accepted = new ArrayList<>(batch.size());
+        for (Subtask subtask : batch) {
+            if (subtask != null && epics.containsKey(subtask.getEpicId()))
+                accepted.add(subtask);
         }
+        checkTaskTimeCollisions(accepted, id -> false);
+
+        final IntSet affectedEpics = new IntSet();
+        for (Subtask subtask : accepted) {
+            subtask.setId(nextId());
+            subtasks.put(subtask.getId(), subtask);
+            publish(TaskChange.Kind.ADDED, subtask);
+            linkSubtask(subtask);
+            affectedEpics.add(subtask.getEpicId());
+        }
+        affectedEpics.forEachInt(epicId -> refreshEpic(epics.get(epicId)));
+        return accepted;
+    }
 
-        final Status firstSubtaskStatus = getSubtaskStatus(epic.getSubtasks().iterator().next());
-        if (firstSubtaskStatus == Status.IN_PROGRESS) {
-            return Status.IN_PROGRESS;
+    @Override
+    public List<Task> updateTasks(Collection<? extends Task> batch) throws TaskTimeConflictException {
+        final List<Task> accepted = new ArrayList<>(batch.size());
+        final List<Task> timed = new ArrayList<>(batch.size());
+        final IntSet ids = new IntSet(batch.size());
+        for (Task item : batch) {
+            if (item == null)
+                continue;
+            final Task old = findTask(item.getId());
+            if (old == null || old.getClass() != item.getClass())
+                continue;
+            if (!ids.add(item.getId()))
+                throw new IllegalArgumentException("Задача " + item.getId() + " встречается в пачке дважды");
+            accepted.add(item);
+            if (!(item instanceof Epic))
+                timed.add(item);
         }
-        for (int id : epic.getSubtasks()) {
-            if (getSubtaskStatus(id) != firstSubtaskStatus) {
-                return Status.IN_PROGRESS;
+        checkTaskTimeCollisions(timed, ids::contains);
+
+        final List<Task> updated = new ArrayList<>(accepted.size());
+        final IntSet affectedEpics = new IntSet();
+        for (Task item : accepted) {
+            final int id = item.getId();
+            if (item instanceof Epic epic) {
+                final Epic old = epics.get(id);
+                if (epic.equals(old)) {
+                    if (epic == old) {
+                        epics.replace(id, epic);
+                        searchIndex.put(epic);
+                    }
+                    updated.add(old);
+                    continue;
+                }
+                epic.removeAllSubtasks();
+                old.getSubtasks().forEachInt(epic::addSubtask);
+                epics.replace(id, epic);
+                searchIndex.put(epic);
+                affectedEpics.add(id);
+            } else if (item instanceof Subtask subtask) {
+                final Subtask old = subtasks.get(id);
+                if (subtask.equals(old)) {
+                    if (subtask == old) {
+                        affectedEpics.add(recount(subtask));
+                        affectedEpics.add(subtask.getEpicId());
+                    }
+                    updated.add(old);
+                    continue;
+                }
+                if (subtask.getEpicId() != old.getEpicId() && !epics.containsKey(subtask.getEpicId()))
+                    subtask.setEpicId(old.getEpicId());
+                subtasks.replace(id, subtask);
+                statusIndex.put(TaskType.SUBTASK, id, subtask.getStatus());
+                searchIndex.put(subtask);
+                if (subtask.getEpicId() != old.getEpicId())
+                    affectedEpics.add(moveSubtask(subtask, old.getEpicId()).getId());
+                epicAggregates.get(subtask.getEpicId()).put(subtask);
+                prioritizedTasks.remove(old);
+                tryAddToPrioritizedTasks(subtask);
+                affectedEpics.add(subtask.getEpicId());
+            } else {
+                prioritizedTasks.remove(tasks.replace(id, item));
+                tryAddToPrioritizedTasks(item);
+                statusIndex.put(TaskType.TASK, id, item.getStatus());
+                searchIndex.put(item);
             }
+            publish(TaskChange.Kind.UPDATED, item);
+            updated.add(item);
         }
-        return firstSubtaskStatus;
+        affectedEpics.forEachInt(epicId -> refreshEpic(epics.get(epicId)));
+        return updated;
     }
 
-    protected void updateEpicStatus(Epic epic) {
-        epic.setStatus(calculateEpicStatus(epic));
+    @Override
+    public List<Task> removeTasks(int... ids) {
+        final List<Task> removed = new ArrayList<>(ids.length);
+        final IntSet affectedEpics = new IntSet();
+        for (int id : ids) {
+            final Task task = tasks.remove(id);
+            if (task != null) {
+                prioritizedTasks.remove(task);
+                historyManager.remove(id);
+                statusIndex.remove(TaskType.TASK, id);
+                taskIds.remove(id);
+                searchIndex.remove(id);
+                publish(TaskChange.Kind.REMOVED, task);
+                removed.add(task);
+                continue;
+            }
+            final Subtask subtask = subtasks.remove(id);
+            if (subtask != null) {
+                prioritizedTasks.remove(subtask);
+                historyManager.remove(id);
+                statusIndex.remove(TaskType.SUBTASK, id);
+                subtaskIds.remove(id);
+                searchIndex.remove(id);
+                publish(TaskChange.Kind.REMOVED, subtask);
+                final Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(id);
+                    epicAggregates.get(epic.getId()).remove(id);
+                    affectedEpics.add(epic.getId());
+                }
+                removed.add(subtask);
+                continue;
+            }
+            final Epic epic = removeEpicImpl(id);
+            if (epic != null)
+                removed.add(epic);
+        }
+        affectedEpics.forEachInt(epicId -> {
+            final Epic epic = epics.get(epicId);
+            if (epic != null)
+                refreshEpic(epic);
+        });
+        return removed;
     }
 
-    protected void updateEpicTime(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(null);
+    @Override
+    public void inTransaction(Consumer<Transaction> work) throws TaskTimeConflictException {
+        final TaskTransaction transaction = new TaskTransaction(this::nextId);
+        work.accept(transaction);
+        commit(transaction);
+    }
+
+    /* Итоговое состояние проверяется до первого изменения, поэтому при конфликте по времени менеджер
+       остается нетронутым. Изменения применяются по порядку, а расписание обновляется один раз в конце:
+       промежуточные состояния могут пересекаться по времени, и в TimeIndex их класть нельзя */
+    protected TaskTransaction.Result commit(TaskTransaction transaction) throws TaskTimeConflictException {
+        final List<TaskTransaction.Change> changes = transaction.stage(this::findTask);
+        final List<Task> staged = new ArrayList<>();
+        for (Task item : transaction.stagedItems()) {
+            if (!(item instanceof Epic))
+                staged.add(item);
+        }
+        checkTaskTimeCollisions(staged, transaction::isTouched);
+
+        final IntSet existed = new IntSet();
+        for (int id : transaction.touched()) {
+            final Task original = findTask(id);
+            if (original != null) {
+                existed.add(id);
+                prioritizedTasks.remove(original);
+            }
+        }
+        scheduleDeferred = true;
+        try {
+            for (TaskTransaction.Change change : changes) {
+                apply(change);
+            }
+        } finally {
+            scheduleDeferred = false;
+        }
+
+        final List<Task> upserted = new ArrayList<>();
+        final List<Integer> removed = new ArrayList<>();
+        for (int id : transaction.touched()) {
+            final Task current = findTask(id);
+            if (current != null) {
+                tryAddToPrioritizedTasks(current);
+                upserted.add(current);
+            } else if (existed.contains(id)) {
+                removed.add(id);
+            }
+        }
+        return new TaskTransaction.Result(upserted, removed);
+    }
+
+    private void apply(TaskTransaction.Change change) {
+        switch (change.kind()) {
+            case ADD -> {
+                switch (change.type()) {
+                    case EPIC -> addEpicImpl((Epic) change.item());
+                    case SUBTASK -> addSubtaskImpl((Subtask) change.item());
+                    default -> addTaskImpl(change.item());
+                }
+            }
+            case UPDATE -> {
+                switch (change.type()) {
+                    case EPIC -> updateEpicImpl((Epic) change.item());
+                    case SUBTASK -> updateSubtaskImpl((Subtask) change.item());
+                    default -> updateTaskImpl(change.item());
+                }
+            }
+            case REMOVE -> {
+                switch (change.type()) {
+                    case EPIC -> removeEpicImpl(change.id());
+                    case SUBTASK -> removeSubtaskImpl(change.id());
+                    default -> removeTaskImpl(change.id());
+                }
+            }
+        }
+    }
+
+    /* Подписчики получают события асинхронно. Запись не ждет подписчиков: событие, не поместившееся
+       в буфер подписчика, для него теряется (см. TaskChange.sequence) */
+    @Override
+    public Flow.Publisher<TaskChange> changes() {
+        SubmissionPublisher<TaskChange> publisher = changes;
+        if (publisher == null) {
+            synchronized (changesLock) {
+                publisher = changes;
+                if (publisher == null) {
+                    publisher = new SubmissionPublisher<>();
+                    changes = publisher;
+                }
+            }
+        }
+        return publisher;
+    }
+
+    private void publish(TaskChange.Kind kind, Task task) {
+        final SubmissionPublisher<TaskChange> publisher = changes;
+        if (publisher == null || !publisher.hasSubscribers())
             return;
+        final Task version = task.snapshot();
+        /* Номер выдается и событие отправляется под одной блокировкой, иначе при записи из разных
+           потоков события могли бы прийти не по порядку номеров */
+        synchronized (changesLock) {
+            publisher.offer(new TaskChange(++changeSequence, kind, version), (subscriber, change) -> false);
         }
+    }
+
+    private void publishAll(TaskChange.Kind kind, IntMap<? extends Task> items) {
+        final SubmissionPublisher<TaskChange> publisher = changes;
+        if (publisher == null || !publisher.hasSubscribers())
+            return;
+        items.values().forEach(item -> publish(kind, item));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
 
-        Optional<LocalDateTime> startTime = epic.getSubtasks().stream()
-                .map(this::getSubtask)
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo);
-
-        Optional<LocalDateTime> endTime = epic.getSubtasks().stream()
-                .map(this::getSubtask)
-                .map(Task::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo);
-
-        Duration duration = epic.getSubtasks().stream()
-                .map(this::getSubtask)
-                .map(Task::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus);
-
-        epic.setStartTime(startTime.orElse(null));
-        epic.setEndTime(endTime.orElse(null));
+    @Override
+    public List<Task> getHistory(int afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+
+    protected void updateEpicStatus(Epic epic) {
+        final Status status = epicAggregates.get(epic.getId()).getStatus();
+        final boolean changed = status != epic.getStatus();
+        epic.setStatus(status);
+        statusIndex.put(TaskType.EPIC, epic.getId(), status);
+        if (changed)
+            publish(TaskChange.Kind.EPIC_STATUS, epic);
+    }
+
+    protected void updateEpicTime(Epic epic) {
+        final EpicAggregate aggregate = epicAggregates.get(epic.getId());
+        final LocalDateTime startTime = aggregate.isEmpty() ? null : aggregate.getStartTime();
+        final LocalDateTime endTime = aggregate.isEmpty() ? null : aggregate.getEndTime();
+        final Duration duration = aggregate.isEmpty() ? null : aggregate.getDuration();
+        final boolean changed = !Objects.equals(startTime, epic.getStartTime())
+                || !Objects.equals(endTime, epic.getEndTime())
+                || !Objects.equals(duration, epic.getDuration());
+
+        epic.setStartTime(startTime);
+        epic.setEndTime(endTime);
         epic.setDuration(duration);
+        if (changed)
+            publish(TaskChange.Kind.EPIC_TIME, epic);
+    }
+
+    private void refreshEpic(Epic epic) {
+        updateEpicStatus(epic);
+        updateEpicTime(epic);
     }
 
-    private int nextId() {
+    protected int nextId() {
         return ++uniqueId;
     }
 
+    /* Подзадача изменена на месте и передана тем же объектом: записываем ее заново и переиндексируем.
+       Возвращает id прежнего эпика - его ищем перебором, если на месте изменили и id эпика */
+    private int recount(Subtask subtask) {
+        final int id = subtask.getId();
+        final Epic epic = epics.get(subtask.getEpicId());
+        int previousEpicId = subtask.getEpicId();
+        if (epic == null || !epic.getSubtasks().contains(id)) {
+            final int[] listing = {previousEpicId};
+            epics.forEachKey(epicId -> {
+                if (epics.get(epicId).getSubtasks().contains(id))
+                    listing[0] = epicId;
+            });
+            previousEpicId = listing[0];
+            if (epic == null)
+                subtask.setEpicId(previousEpicId);
+            else
+                moveSubtask(subtask, previousEpicId);
+        }
+        subtasks.replace(id, subtask);
+        statusIndex.put(TaskType.SUBTASK, id, subtask.getStatus());
+        searchIndex.put(subtask);
+        epicAggregates.get(subtask.getEpicId()).put(subtask);
+        prioritizedTasks.remove(subtask); // расписание убирает задачу по времени, под которым ее добавило
+        tryAddToPrioritizedTasks(subtask);
+        return previousEpicId;
+    }
+
+    /* Переносит подзадачу из эпика fromEpicId в эпик ее текущего epicId. Агрегат нового эпика
+       обновляет вызывающий; возвращает прежний эпик, его состояние нужно пересчитать */
+    private Epic moveSubtask(Subtask subtask, int fromEpicId) {
+        final Epic from = epics.get(fromEpicId);
+        from.removeSubtask(subtask.getId());
+        epicAggregates.get(fromEpicId).remove(subtask.getId());
+        epics.get(subtask.getEpicId()).addSubtask(subtask.getId());
+        return from;
+    }
+
     @SuppressWarnings("UnusedReturnValue")
     private boolean tryAddToPrioritizedTasks(Task task) throws IllegalArgumentException {
         if (task == null)
             throw new IllegalArgumentException();
-        if (task.getStartTime() == null)
+        if (task.getStartTime() == null || scheduleDeferred)
             return false;
         if (task instanceof Epic)
             return false;
@@ -379,32 +924,23 @@ public class InMemoryTaskManager implements TaskManager {
         return true;
     }
 
-    private void checkTaskTimeCollision(Task task) throws TaskTimeConflictException {
-        if (task.getStartTime() == null || task.getDuration() == null)
+    /* Проверка всей пачки до первого изменения: либо применяется вся пачка, либо ничего.
+       replaced - id задач, чьи старые версии в расписании заменяются задачами пачки */
+    private void checkTaskTimeCollisions(Collection<? extends Task> batch, IntPredicate replaced)
+            throws TaskTimeConflictException {
+        final Map.Entry<Task, Task> conflict = prioritizedTasks.findOverlap(batch, replaced);
+        if (conflict == null)
             return;
+        final Task task = conflict.getKey();
+        final Task other = conflict.getValue();
+        if (findTask(other.getId()) == other)
+            throw new TaskTimeConflictException(task.getName(), other.getId());
+        throw new TaskTimeConflictException(task.getName(), other.getName());
+    }
 
-        if (prioritizedTasks.isEmpty())
-            return;
-
-        int left = 0;
-        int right = prioritizedTasks.size() - 1;
-
-        List<Task> list = prioritizedTasks.stream().toList();
-
-        do {
-            int index = (left + right) >>> 1;
-            // System.out.println("index = " + index);
-            Task other = list.get(index);
-            int result = comparatorByTime.compare(task, other);
-            if (result == 0)
-                throw new TaskTimeConflictException(task.getName(), other.getId());
-
-            if (result < 0) {
-                right = index - 1;
-            } else {
-                left = index + 1;
-            }
-
-        } while (left <= right);
+    private void checkTaskTimeCollision(Task task) throws TaskTimeConflictException {
+        Task other = prioritizedTasks.findOverlap(task);
+        if (other != null)
+            throw new TaskTimeConflictException(task.getName(), other.getId());
     }
 }
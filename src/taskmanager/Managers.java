@@ -4,6 +4,8 @@ import java.nio.file.Path;
 
 public class Managers {
 
+    public static final String HISTORY_CAPACITY_PROPERTY = "kanban.history.capacity";
+
     private Managers() {
 
     }
@@ -12,11 +14,43 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static SnapshotTaskManager getSnapshotTaskManager() {
+        return new SnapshotTaskManager();
+    }
+
     public static TaskManager getFileBackedTaskManager(Path path) {
         return FileBackedTaskManager.loadFromFile(path);
     }
 
+    public static TaskManager getJournaledTaskManager(Path path) {
+        return FileBackedTaskManager.loadFromFile(path, SavePolicy.journal(SavePolicy.DEFAULT_JOURNAL_THRESHOLD));
+    }
+
+    public static TaskManager getFileBackedTaskManager(Path path, SavePolicy policy) {
+        return FileBackedTaskManager.loadFromFile(path, policy);
+    }
+
+    public static TaskManager getFileBackedTaskManager(Path path, SavePolicy policy, FileFormat format) {
+        return FileBackedTaskManager.loadFromFile(path, policy, format);
+    }
+
+    public static MappedTaskManager getMappedTaskManager(Path path) {
+        return MappedTaskManager.open(path);
+    }
+
+    /* Размер истории задается системным свойством kanban.history.capacity, без него история не ограничена */
     public static HistoryManager getDefaultHistory() {
+        final Integer capacity = Integer.getInteger(HISTORY_CAPACITY_PROPERTY);
+        if (capacity != null && capacity > 0)
+            return getBoundedHistory(capacity);
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getBoundedHistory(int capacity) {
+        return new BoundedHistoryManager(capacity);
+    }
 }
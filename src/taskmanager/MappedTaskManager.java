@@ -0,0 +1,102 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import exception.ManagerSaveException;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/* Менеджер для очень больших досок: задачи и подзадачи лежат в файле, отображенном в память
+   (см. MappedTaskStore), и материализуются только при обращении. В куче остаются индекс id -> слот,
+   кэш недавно прочитанных задач, эпики (их состояние вычисляется по подзадачам) и задачи со временем
+   старта, которые нужны расписанию. Каждое изменение сразу пишется в отображенный файл,
+   на диск его сбрасывает flush() или close().
+
+   Цена задачи в куче (кроме кэша):
+   - индекс id -> слот (IntIntMap) - 15-30 байт;
+   - id в упорядоченном множестве своего вида (IntSortedSet) - 4-8 байт;
+   - id в индексе статусов (IntSet) - 8-17 байт;
+   - поисковый индекс (SearchIndex) - массив ссылок на слова задачи (сами строки слов общие для всех
+     задач) и по записи в IntIntMap каждого слова - около 15-30 байт на слово, текст не копируется;
+   - задача со временем старта и эпик хранятся целиком.
+   Без поиска и расписания задача обходится примерно в 30-55 байт, с коротким текстом поиск добавляет
+   несколько десятков */
+public class MappedTaskManager extends InMemoryTaskManager implements Closeable {
+
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final MappedTaskStore store;
+
+    private MappedTaskManager(MappedTaskStore store, HistoryManager historyManager, int cacheSize) {
+        super(historyManager, new MappedTaskMap<>(store, cacheSize), new MappedTaskMap<>(store, Integer.MAX_VALUE),
+                new MappedTaskMap<>(store, cacheSize));
+        this.store = store;
+    }
+
+    public static MappedTaskManager open(Path path) {
+        return open(path, DEFAULT_CACHE_SIZE);
+    }
+
+    public static MappedTaskManager open(Path path, int cacheSize) {
+        final MappedTaskStore store;
+        try {
+            store = new MappedTaskStore(path);
+        } catch (IOException e) {
+            throw new LoadTaskException("Ошибка открытия файла '" + path.getFileName() + "'");
+        }
+        MappedTaskManager manager = new MappedTaskManager(store, Managers.getDefaultHistory(), cacheSize);
+        manager.restore();
+        return manager;
+    }
+
+    /* Сбрасывает изменения на диск */
+    public void flush() {
+        store.force();
+    }
+
+    MappedTaskStore store() {
+        return store;
+    }
+
+    @Override
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия хранилища задач");
+        }
+    }
+
+    /* Строит индексы по содержимому файла. Сначала эпики, чтобы подзадачам было к чему привязаться */
+    private void restore() {
+        final MappedTaskMap<Task> taskSlots = (MappedTaskMap<Task>) tasks;
+        final MappedTaskMap<Epic> epicSlots = (MappedTaskMap<Epic>) epics;
+        final MappedTaskMap<Subtask> subtaskSlots = (MappedTaskMap<Subtask>) subtasks;
+        for (int slot = 1; slot < store.slots(); slot++) {
+            final int id = store.idAt(slot);
+            switch (store.typeAt(slot)) {
+                case MappedTaskStore.TASK -> taskSlots.restore(id, slot);
+                case MappedTaskStore.EPIC -> epicSlots.restore(id, slot);
+                case MappedTaskStore.SUBTASK -> subtaskSlots.restore(id, slot);
+                default -> {
+                    continue;
+                }
+            }
+            uniqueId = Math.max(uniqueId, id);
+        }
+
+        for (int id : epics.keySet()) {
+            indexEpic(epics.get(id));
+        }
+        for (int id : tasks.keySet()) {
+            indexTask(tasks.get(id));
+        }
+        for (int id : subtasks.keySet()) {
+            indexSubtask(subtasks.get(id));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package taskmanager;
+
+import intcollections.IntIntMap;
+import intcollections.IntMap;
+import tasks.Task;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/* Map id -> задача поверх MappedTaskStore. В куче хранится только индекс id -> номер слота
+   (IntIntMap, без упаковки) и кэш последних прочитанных объектов (LRU на cacheCapacity элементов).
+   Остальные задачи материализуются из файла при обращении */
+class MappedTaskMap<T extends Task> extends AbstractMap<Integer, T> implements IntMap<T> {
+
+    private static final int NO_SLOT = 0; // нулевой слот хранилища - заголовок, задач в нем не бывает
+
+    private final MappedTaskStore store;
+    private final IntIntMap slots = new IntIntMap();
+    private final Map<Integer, T> cache;
+
+    MappedTaskMap(MappedTaskStore store, int cacheCapacity) {
+        this.store = store;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    /* Регистрирует запись, уже лежащую в файле, - используется при открытии хранилища */
+    void restore(int id, int slot) {
+        slots.put(id, slot);
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return slots.containsKey(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        T value = cache.get(key);
+        if (value != null)
+            return value;
+        final int slot = slots.getOrDefault(key, NO_SLOT);
+        if (slot == NO_SLOT)
+            return null;
+        value = (T) store.read(slot);
+        cache.put(key, value);
+        return value;
+    }
+
+    @Override
+    public T get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public T put(int key, T value) {
+        int slot = slots.getOrDefault(key, NO_SLOT);
+        final T previous = slot == NO_SLOT ? null : get(key);
+        if (slot == NO_SLOT) {
+            slot = store.allocate();
+            slots.put(key, slot);
+        }
+        store.write(slot, value, previous != null);
+        cache.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public T put(Integer key, T value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public T replace(Integer key, T value) {
+        return slots.containsKey(key.intValue()) ? put(key.intValue(), value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int key) {
+        final int slot = slots.remove(key, NO_SLOT);
+        if (slot == NO_SLOT)
+            return null;
+        T removed = cache.remove(key);
+        if (removed == null)
+            removed = (T) store.read(slot);
+        store.free(slot);
+        return removed;
+    }
+
+    @Override
+    public T remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        slots.forEach((id, slot) -> store.free(slot));
+        slots.clear();
+        cache.clear();
+    }
+
+    /* Ключи отдаются без материализации задач */
+    @Override
+    public void forEachKey(IntConsumer action) {
+        slots.forEach((id, slot) -> action.accept(id));
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return slots.size();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return Arrays.stream(ids()).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, T>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return slots.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<Integer, T>> iterator() {
+                final int[] ids = ids();
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < ids.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Integer, T> next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        final int id = ids[index++];
+                        return new AbstractMap.SimpleImmutableEntry<>(id, get(id));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (index == 0)
+                            throw new IllegalStateException();
+                        final int id = ids[index - 1];
+                        final int slot = slots.remove(id, NO_SLOT);
+                        if (slot == NO_SLOT)
+                            throw new IllegalStateException();
+                        cache.remove(id);
+                        store.free(slot);
+                    }
+                };
+            }
+        };
+    }
+
+    /* Обход идет по копии ключей: таблица может перестроиться, пока обходящий меняет карту */
+    private int[] ids() {
+        final int[] ids = new int[slots.size()];
+        final int[] count = {0};
+        slots.forEach((id, slot) -> ids[count[0]++] = id);
+        return ids;
+    }
+}
@@ -0,0 +1,427 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import exception.ManagerSaveException;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* Хранилище задач в файле, отображенном в память.
+   Основной файл - массив записей фиксированной длины RECORD_SIZE, нулевая запись - заголовок
+   (MAGIC, VERSION, число занятых слотов, поколение файла строк). Файл отображается сегментами
+   по SEGMENT_RECORDS записей, поэтому его размер не ограничен 2 ГБ одного MappedByteBuffer.
+   Строки переменной длины лежат в отдельном файле, в записи хранятся их смещение и длина.
+   Слот удаленной задачи помечается FREE и используется повторно; строки дописываются в конец,
+   а неизмененные имя и описание при обновлении задачи не переписываются.
+
+   Старые версии строк остаются в файле строк мусором. Когда мусора становится больше, чем живых строк
+   (и не меньше MIN_COMPACT_GARBAGE байт), живые строки переписываются в файл следующего поколения,
+   а записи с новыми смещениями - в копию основного файла. Копия атомарно подменяет основной файл,
+   поэтому после сбоя остается либо старая пара файлов, либо новая. Файл строк поколения 0 -
+   <path>.str, следующих - <path>.str.<поколение>. Хранилища версии 1 - это поколение 0 */
+final class MappedTaskStore implements Closeable {
+
+    static final byte FREE = 0;
+    static final byte TASK = 1;
+    static final byte EPIC = 2;
+    static final byte SUBTASK = 3;
+
+    static final int MAGIC = 0x4B424D50; // "KBMP"
+    static final int VERSION = 2;
+
+    private static final int RECORD_SIZE = 64;
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final long SEGMENT_SIZE = (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+    /* Смещения полей заголовка */
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOTS = 8;
+    private static final int HEADER_STRINGS = 12;
+
+    /* Смещения полей записи */
+    private static final int TYPE = 0;
+    private static final int STATUS = 1;
+    private static final int ID = 4;
+    private static final int EPIC_ID = 8;
+    private static final int NANOS = 12;
+    private static final int SECONDS = 16;
+    private static final int MINUTES = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int NAME_LENGTH = 40;
+    private static final int DESCRIPTION_OFFSET = 44;
+    private static final int DESCRIPTION_LENGTH = 52;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long NULL_STRING = -1;
+    private static final Status[] STATUSES = Status.values();
+    private static final long MIN_COMPACT_GARBAGE = 1 << 20;
+
+    private final Path path;
+    private FileChannel records;
+    private FileChannel strings;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long stringsSize;
+    private long liveStringsSize; // байт строк, на которые ссылаются занятые слоты
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    MappedTaskStore(Path path) throws IOException {
+        this.path = path;
+        records = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (records.size() == 0) {
+            MappedByteBuffer header = mapSegment(0);
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_SLOTS, 1);
+            header.putInt(HEADER_STRINGS, 0);
+            slots = 1;
+            openStrings(0);
+            return;
+        }
+
+        final long segmentCount = (records.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        for (int i = 0; i < segmentCount; i++) {
+            mapSegment(i);
+        }
+        MappedByteBuffer header = segments.get(0);
+        if (header.getInt(HEADER_MAGIC) != MAGIC)
+            throw new LoadTaskException("Файл '" + path.getFileName() + "' не является хранилищем задач");
+        final int version = header.getInt(HEADER_VERSION);
+        if (version != 1 && version != VERSION)
+            throw new LoadTaskException("Неподдерживаемая версия хранилища задач: " + version);
+        if (version == 1) {
+            header.putInt(HEADER_STRINGS, 0);
+            header.putInt(HEADER_VERSION, VERSION);
+        }
+        slots = header.getInt(HEADER_SLOTS);
+        for (int slot = slots - 1; slot > 0; slot--) {
+            if (typeAt(slot) == FREE)
+                pushFree(slot);
+            else
+                liveStringsSize += stringsSizeAt(slot);
+        }
+        final int generation = header.getInt(HEADER_STRINGS);
+        openStrings(generation);
+        if (generation > 0)
+            Files.deleteIfExists(stringsPath(generation - 1)); // сжатие прервалось до удаления старого файла
+    }
+
+    /* Число слотов, включая заголовок; занятые слоты лежат в диапазоне [1, slots()) */
+    int slots() {
+        return slots;
+    }
+
+    byte typeAt(int slot) {
+        return segment(slot).get(base(slot) + TYPE);
+    }
+
+    int idAt(int slot) {
+        return segment(slot).getInt(base(slot) + ID);
+    }
+
+    int allocate() {
+        if (freeCount > 0)
+            return freeSlots[--freeCount];
+        final int slot = slots;
+        if ((slot >>> SEGMENT_SHIFT) == segments.size())
+            mapSegment(segments.size());
+        slots++;
+        segments.get(0).putInt(HEADER_SLOTS, slots);
+        return slot;
+    }
+
+    void free(int slot) {
+        liveStringsSize -= stringsSizeAt(slot);
+        segment(slot).put(base(slot) + TYPE, FREE);
+        pushFree(slot);
+    }
+
+    /* replaced - слот уже занят предыдущей версией задачи. Ее строки сравниваются с записанными
+       в файле строк, а не с объектом из кэша: его могли изменить на месте.
+       Тип записывается последним, чтобы запись не считалась занятой, пока не заполнена */
+    void write(int slot, Task task, boolean replaced) {
+        final MappedByteBuffer segment = segment(slot);
+        final int base = base(slot);
+        final byte type = typeOf(task);
+
+        putString(segment, base + NAME_OFFSET, base + NAME_LENGTH, task.getName(), replaced);
+        putString(segment, base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH, task.getDescription(), replaced);
+
+        segment.putInt(base + ID, task.getId());
+        if (type != EPIC) {
+            segment.put(base + STATUS, task.getStatus() == null ? -1 : (byte) task.getStatus().ordinal());
+            segment.putInt(base + EPIC_ID, type == SUBTASK ? ((Subtask) task).getEpicId() : 0);
+            final LocalDateTime startTime = task.getStartTime();
+            segment.putLong(base + SECONDS, startTime == null ? NULL_TIME : startTime.toEpochSecond(ZoneOffset.UTC));
+            segment.putInt(base + NANOS, startTime == null ? 0 : startTime.getNano());
+            segment.putLong(base + MINUTES, task.getDuration() == null ? NULL_TIME : task.getDuration().toMinutes());
+        }
+        segment.put(base + TYPE, type);
+
+        final long garbage = stringsSize - liveStringsSize;
+        if (garbage >= MIN_COMPACT_GARBAGE && garbage > liveStringsSize)
+            compactStrings();
+    }
+
+    Task read(int slot) {
+        final MappedByteBuffer segment = segment(slot);
+        final int base = base(slot);
+        final byte type = segment.get(base + TYPE);
+        final int id = segment.getInt(base + ID);
+        final String name = getString(segment.getLong(base + NAME_OFFSET), segment.getInt(base + NAME_LENGTH));
+        final String description = getString(segment.getLong(base + DESCRIPTION_OFFSET),
+                segment.getInt(base + DESCRIPTION_LENGTH));
+        if (type == EPIC)
+            return new Epic(id, name, description);
+        if (type != TASK && type != SUBTASK)
+            throw new LoadTaskException("Неподдерживаемый тип задачи в хранилище: " + type);
+
+        final byte status = segment.get(base + STATUS);
+        final long seconds = segment.getLong(base + SECONDS);
+        final long minutes = segment.getLong(base + MINUTES);
+        LocalDateTime startTime = seconds == NULL_TIME ? null
+                : LocalDateTime.ofEpochSecond(seconds, segment.getInt(base + NANOS), ZoneOffset.UTC);
+        Duration duration = minutes == NULL_TIME ? null : Duration.ofMinutes(minutes);
+        if (status >= STATUSES.length || status < -1)
+            throw new LoadTaskException("Неподдерживаемый статус задачи в хранилище: " + status);
+        Status taskStatus = status < 0 ? null : STATUSES[status];
+        if (type == SUBTASK)
+            return new Subtask(id, name, description, taskStatus, segment.getInt(base + EPIC_ID), startTime, duration);
+        return new Task(id, name, description, taskStatus, startTime, duration);
+    }
+
+    /* Сбрасывает изменения на диск */
+    void force() {
+        try {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            strings.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в файл '" + path.getFileName() + "'");
+        }
+    }
+
+    /* Размер файла строк - для проверки сжатия */
+    long stringsFileSize() {
+        return stringsSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        records.close();
+        strings.close();
+    }
+
+    static byte typeOf(Task task) {
+        if (task instanceof Epic)
+            return EPIC;
+        if (task instanceof Subtask)
+            return SUBTASK;
+        return TASK;
+    }
+
+    private MappedByteBuffer mapSegment(int index) {
+        try {
+            MappedByteBuffer segment = records.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_SIZE,
+                    SEGMENT_SIZE);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в файл '" + path.getFileName() + "'");
+        }
+    }
+
+    private MappedByteBuffer segment(int slot) {
+        return segments.get(slot >>> SEGMENT_SHIFT);
+    }
+
+    private static int base(int slot) {
+        return (slot & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    /* replaced - в поле лежит строка прежней версии задачи, она становится мусором */
+    private void putString(MappedByteBuffer segment, int offsetField, int lengthField, String value,
+                           boolean replaced) {
+        final byte[] encoded = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        if (replaced && isStored(segment.getLong(offsetField), segment.getInt(lengthField), encoded))
+            return; // строка не изменилась, файл строк не растет
+        if (replaced && segment.getLong(offsetField) != NULL_STRING)
+            liveStringsSize -= segment.getInt(lengthField);
+        if (encoded == null) {
+            segment.putLong(offsetField, NULL_STRING);
+            segment.putInt(lengthField, 0);
+            return;
+        }
+        final ByteBuffer bytes = ByteBuffer.wrap(encoded);
+        final long offset = stringsSize;
+        try {
+            while (bytes.hasRemaining()) {
+                strings.write(bytes, offset + bytes.position());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в файл '" + path.getFileName() + ".str'");
+        }
+        stringsSize += bytes.limit();
+        liveStringsSize += bytes.limit();
+        segment.putLong(offsetField, offset);
+        segment.putInt(lengthField, bytes.limit());
+    }
+
+    private boolean isStored(long offset, int length, byte[] encoded) {
+        if (offset == NULL_STRING || encoded == null)
+            return offset == NULL_STRING && encoded == null;
+        return length == encoded.length && Arrays.equals(readBytes(offset, length), encoded);
+    }
+
+    private String getString(long offset, int length) {
+        if (offset == NULL_STRING)
+            return null;
+        return new String(readBytes(offset, length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(long offset, int length) {
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        try {
+            while (bytes.hasRemaining()) {
+                if (strings.read(bytes, offset + bytes.position()) < 0)
+                    throw new LoadTaskException("Файл строк '" + path.getFileName() + ".str' поврежден");
+            }
+        } catch (IOException e) {
+            throw new LoadTaskException("Ошибка чтения файла '" + path.getFileName() + ".str'");
+        }
+        return bytes.array();
+    }
+
+    private long stringsSizeAt(int slot) {
+        final MappedByteBuffer segment = segment(slot);
+        final int base = base(slot);
+        long size = 0;
+        if (segment.getLong(base + NAME_OFFSET) != NULL_STRING)
+            size += segment.getInt(base + NAME_LENGTH);
+        if (segment.getLong(base + DESCRIPTION_OFFSET) != NULL_STRING)
+            size += segment.getInt(base + DESCRIPTION_LENGTH);
+        return size;
+    }
+
+    private Path stringsPath(int generation) {
+        return Path.of(path + (generation == 0 ? ".str" : ".str." + generation));
+    }
+
+    private void openStrings(int generation) throws IOException {
+        strings = FileChannel.open(stringsPath(generation), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        stringsSize = strings.size();
+    }
+
+    /* Переписывает живые строки в файл следующего поколения. Записи с новыми смещениями собираются
+       в копии основного файла, которая после fsync обоих файлов атомарно подменяет основной */
+    private void compactStrings() {
+        final int generation = segments.get(0).getInt(HEADER_STRINGS) + 1;
+        final Path recordsCopyPath = Path.of(path + ".tmp");
+        long size = 0;
+        try {
+            try (FileChannel target = FileChannel.open(stringsPath(generation), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 FileChannel recordsCopy = FileChannel.open(recordsCopyPath, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer copy = ByteBuffer.allocate((int) SEGMENT_SIZE);
+                for (int index = 0; index < segments.size(); index++) {
+                    copy.clear();
+                    copy.put(segments.get(index).duplicate().clear());
+                    final int first = Math.max(1, index << SEGMENT_SHIFT);
+                    final int last = Math.min(slots, (index + 1) << SEGMENT_SHIFT);
+                    for (int slot = first; slot < last; slot++) {
+                        if (typeAt(slot) == FREE)
+                            continue;
+                        final int base = base(slot);
+                        size = moveString(copy, base + NAME_OFFSET, base + NAME_LENGTH, target, size);
+                        size = moveString(copy, base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH, target, size);
+                    }
+                    if (index == 0)
+                        copy.putInt(HEADER_STRINGS, generation);
+                    copy.clear();
+                    while (copy.hasRemaining()) {
+                        recordsCopy.write(copy, index * SEGMENT_SIZE + copy.position());
+                    }
+                }
+                target.force(true);
+                recordsCopy.force(true);
+            }
+            Files.move(recordsCopyPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+
+            final int segmentCount = segments.size();
+            records.close();
+            strings.close();
+            segments.clear();
+            records = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            for (int i = 0; i < segmentCount; i++) {
+                mapSegment(i);
+            }
+            openStrings(generation);
+            liveStringsSize = size;
+            Files.deleteIfExists(stringsPath(generation - 1));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сжатия файла строк '" + path.getFileName() + "'");
+        }
+    }
+
+    /* Без этого после сбоя на диске могла бы остаться старая запись каталога, а старый файл строк
+       уже был бы удален */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все системы позволяют открыть каталог (например, Windows) - там переименование и так надежно
+        }
+    }
+
+    /* Копирует строку поля записи в конец target и записывает в копию записи новое смещение */
+    private long moveString(ByteBuffer record, int offsetField, int lengthField, FileChannel target, long size)
+            throws IOException {
+        final long offset = record.getLong(offsetField);
+        if (offset == NULL_STRING)
+            return size;
+        final int length = record.getInt(lengthField);
+        long copied = 0;
+        while (copied < length) {
+            final long count = strings.transferTo(offset + copied, length - copied, target);
+            if (count <= 0)
+                throw new LoadTaskException("Файл строк '" + path.getFileName() + "' поврежден");
+            copied += count;
+        }
+        record.putLong(offsetField, size);
+        return size + length;
+    }
+}
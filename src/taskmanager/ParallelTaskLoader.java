@@ -0,0 +1,155 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/* Параллельный разбор CSV снимка. Файл читается в память и режется на куски по границам строк,
+   куски разбираются TaskLineReader'ом на ForkJoinPool независимо друг от друга. Связывание подзадач
+   с эпиками и построение расписания остаются менеджеру - он получает разобранные куски по порядку.
+
+   Перевод строки может оказаться внутри поля в кавычках, поэтому граница куска выбирается с учетом
+   четности числа кавычек от начала файла: обе фазы (подсчет кавычек и разбор) идут параллельно.
+   Правильность границ проверяется при разборе: кусок, начатый с настоящего начала строки, должен
+   закончиться ровно на границе следующего. Если это не так (например, в старом файле кавычка стоит
+   посреди поля без кавычек), файл разбирается последовательно. Файлы старого формата без кавычек
+   менеджер сюда не передает */
+final class ParallelTaskLoader {
+
+    /* Файлы меньше этого размера выгоднее читать последовательно */
+    static final long MIN_PARALLEL_SIZE = 1 << 20;
+    /* Файл читается в память целиком поверх уже разобранных задач. Файлы больше этого размера
+       или больше восьмой части максимальной кучи читаются потоком, чтобы загрузка не требовала
+       дополнительной памяти размером с файл */
+    static final long MAX_PARALLEL_SIZE = 256L << 20;
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private ParallelTaskLoader() {
+    }
+
+    static boolean shouldUse(long size, ForkJoinPool pool) {
+        return shouldUse(size, pool, Runtime.getRuntime().maxMemory());
+    }
+
+    static boolean shouldUse(long size, ForkJoinPool pool, long maxMemory) {
+        return pool != null && size >= MIN_PARALLEL_SIZE && size <= Math.min(MAX_PARALLEL_SIZE, maxMemory / 8);
+    }
+
+    /* Задачи файла по кускам в порядке следования. Первая строка файла - заголовок */
+    static List<List<Task>> read(FileChannel channel, ForkJoinPool pool, int chunkSize) throws IOException {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE - 8)
+            throw new LoadTaskException("Файл слишком велик для параллельной загрузки");
+        final byte[] data = new byte[(int) size];
+        final int segmentCount = Math.max(1, (int) ((size + chunkSize - 1) / chunkSize));
+
+        final List<Callable<Segment>> scans = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            final int from = (int) ((long) i * size / segmentCount);
+            final int to = (int) ((long) (i + 1) * size / segmentCount);
+            scans.add(() -> Segment.scan(channel, data, from, to));
+        }
+        final List<Segment> segments = collect(pool.invokeAll(scans));
+
+        /* Границы кусков: перевод строки вне кавычек, ближайший к началу сегмента */
+        final List<Integer> bounds = new ArrayList<>(segmentCount + 1);
+        bounds.add(0);
+        int parity = 0;
+        for (Segment segment : segments) {
+            final int bound = segment.firstBreak[parity];
+            if (bound > bounds.getLast() && bound < size)
+                bounds.add(bound);
+            parity = (parity + segment.quotes) & 1;
+        }
+        bounds.add((int) size);
+
+        final List<Callable<List<Task>>> parsers = new ArrayList<>(bounds.size() - 1);
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            final int from = bounds.get(i);
+            final int to = bounds.get(i + 1);
+            final boolean first = i == 0;
+            final boolean last = i + 2 == bounds.size();
+            parsers.add(() -> parse(data, from, to, first, last));
+        }
+        final List<List<Task>> chunks = collect(pool.invokeAll(parsers));
+        if (chunks.contains(null))
+            return List.of(parse(data, 0, data.length, true, true));
+        return chunks;
+    }
+
+    /* null - кусок не закончился на границе строки, значит граница следующего куска выбрана неверно */
+    private static List<Task> parse(byte[] data, int from, int to, boolean first, boolean last) throws IOException {
+        final TaskLineReader reader = new TaskLineReader(data, from, to);
+        final List<Task> items = new ArrayList<>();
+        if (first)
+            reader.skipLine(); // заголовок
+        while (reader.nextRecord()) {
+            if (!last && !reader.isLineComplete())
+                return null;
+            items.add(reader.readTask());
+        }
+        return items;
+    }
+
+    /* Ошибку разбора в куске, начатом не с начала строки, нельзя считать ошибкой файла, поэтому
+       исключения откладываются, пока не станет ясно, что все предыдущие куски сошлись */
+    private static <T> List<T> collect(List<Future<T>> futures) throws IOException {
+        final List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            try {
+                final T result = future.get();
+                results.add(result);
+                if (result == null)
+                    break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LoadTaskException("Загрузка задач прервана");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof LoadTaskException cause)
+                    throw cause;
+                if (e.getCause() instanceof IOException cause)
+                    throw cause;
+                throw new LoadTaskException("Ошибка разбора файла задач: " + e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /* Сегмент файла: число кавычек в нем и позиции сразу после первого перевода строки,
+       перед которым от начала сегмента прошло четное (firstBreak[0]) и нечетное (firstBreak[1])
+       число кавычек; -1 - такого перевода строки нет */
+    private static final class Segment {
+        private int quotes;
+        private final int[] firstBreak = {-1, -1};
+
+        static Segment scan(FileChannel channel, byte[] data, int from, int to) throws IOException {
+            final ByteBuffer target = ByteBuffer.wrap(data, from, to - from);
+            while (target.hasRemaining()) {
+                if (channel.read(target, target.position()) < 0)
+                    throw new LoadTaskException("Файл задач изменился во время загрузки");
+            }
+
+            final Segment segment = new Segment();
+            int quotes = 0;
+            for (int i = from; i < to; i++) {
+                final byte b = data[i];
+                if (b == '"') {
+                    quotes++;
+                } else if (b == '\n' && segment.firstBreak[quotes & 1] < 0) {
+                    segment.firstBreak[quotes & 1] = i + 1;
+                }
+            }
+            segment.quotes = quotes;
+            return segment;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package taskmanager;
+
+import java.time.Duration;
+
+/* Режим сохранения FileBackedTaskManager:
+   SYNC     - каждое изменение перезаписывает файл в вызывающем потоке;
+   ASYNC    - изменения только отмечаются, фоновый поток перезаписывает файл как можно скорее,
+              объединяя изменения, накопившиеся за время предыдущей записи;
+   INTERVAL - фоновый поток пишет не чаще раза в interval или после maxPendingChanges изменений;
+   JOURNAL  - каждое изменение дописывается в журнал, журнал сворачивается в снимок
+              после journalThreshold байт */
+public record SavePolicy(Mode mode, Duration interval, int maxPendingChanges, long journalThreshold) {
+
+    public static final long DEFAULT_JOURNAL_THRESHOLD = 1024 * 1024;
+
+    public enum Mode {
+        SYNC,
+        ASYNC,
+        INTERVAL,
+        JOURNAL
+    }
+
+    public SavePolicy {
+        if (mode == Mode.INTERVAL && (interval == null || interval.isNegative() || interval.isZero()))
+            throw new IllegalArgumentException("Интервал сохранения должен быть положительным");
+        if (mode == Mode.INTERVAL && maxPendingChanges <= 0)
+            throw new IllegalArgumentException("Число изменений до сохранения должно быть положительным");
+        if (mode == Mode.JOURNAL && journalThreshold <= 0)
+            throw new IllegalArgumentException("Размер журнала должен быть положительным");
+    }
+
+    public static SavePolicy sync() {
+        return new SavePolicy(Mode.SYNC, null, 0, 0);
+    }
+
+    public static SavePolicy async() {
+        return new SavePolicy(Mode.ASYNC, null, 0, 0);
+    }
+
+    public static SavePolicy interval(Duration interval, int maxPendingChanges) {
+        return new SavePolicy(Mode.INTERVAL, interval, maxPendingChanges, 0);
+    }
+
+    public static SavePolicy journal(long journalThreshold) {
+        return new SavePolicy(Mode.JOURNAL, null, 0, journalThreshold);
+    }
+}
@@ -0,0 +1,187 @@
+package taskmanager;
+
+import intcollections.IntIntMap;
+import intcollections.IntObjectMap;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* Обратный индекс по словам названий и описаний: слово -> (id -> в каких полях встречается).
+   Слова хранятся в TreeMap, поэтому все слова с данным префиксом - это один диапазон ключей.
+
+   Каждое слово запроса считается префиксом, задача должна содержать все слова запроса.
+   Оценка задачи - сумма по словам запроса лучшего совпадения: слово целиком в названии,
+   префикс слова в названии, слово целиком в описании, префикс в описании.
+
+   ConcurrentTaskManager меняет задачи и эпики под разными блокировками, поэтому у индекса своя */
+class SearchIndex {
+
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+
+    private final NavigableMap<String, IntIntMap> postings = new TreeMap<>();
+    /* Слова каждой задачи, по ним задача убирается из postings. Исходный текст не хранится,
+       а строки слов общие с ключами postings */
+    private final IntObjectMap<String[]> documents = new IntObjectMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* Индексирует новую задачу или новую версию задачи с тем же id */
+    void put(Task item) {
+        final int id = item.getId();
+        final Map<String, Integer> fields = new TreeMap<>();
+        for (String term : tokens(item.getName())) {
+            fields.merge(term, NAME, (a, b) -> a | b);
+        }
+        for (String term : tokens(item.getDescription())) {
+            fields.merge(term, DESCRIPTION, (a, b) -> a | b);
+        }
+
+        lock.writeLock().lock();
+        try {
+            final String[] old = documents.get(id);
+            if (old != null && isIndexed(id, old, fields))
+                return;
+            if (old != null)
+                unindex(id, old);
+
+            final String[] terms = new String[fields.size()];
+            int index = 0;
+            for (Map.Entry<String, Integer> field : fields.entrySet()) {
+                String term = field.getKey();
+                final Map.Entry<String, IntIntMap> entry = postings.ceilingEntry(term);
+                final IntIntMap ids;
+                if (entry != null && entry.getKey().equals(term)) {
+                    term = entry.getKey();
+                    ids = entry.getValue();
+                } else {
+                    ids = new IntIntMap();
+                    postings.put(term, ids);
+                }
+                ids.put(id, field.getValue());
+                terms[index++] = term;
+            }
+            documents.put(id, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            final String[] old = documents.remove(id);
+            if (old != null)
+                unindex(id, old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* id не более limit лучших задач: по убыванию оценки, при равной оценке - по возрастанию id */
+    List<Integer> search(String query, int limit) {
+        final List<String> words = new ArrayList<>(new LinkedHashSet<>(tokens(query)));
+        if (words.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+        // длинный префикс обычно отбирает меньше задач, с него и начинаем
+        words.sort(Comparator.comparingInt(String::length).reversed());
+
+        lock.readLock().lock();
+        try {
+            IntIntMap scores = null;
+            for (String word : words) {
+                final IntIntMap candidates = scores;
+                final IntIntMap matched = new IntIntMap();
+                for (Map.Entry<String, IntIntMap> entry : postings.subMap(word, true,
+                        word + Character.MAX_VALUE, false).entrySet()) {
+                    final boolean exact = entry.getKey().length() == word.length();
+                    entry.getValue().forEach((id, field) -> {
+                        if (candidates != null && !candidates.containsKey(id))
+                            return;
+                        final int score = score(field, exact);
+                        if (score > matched.getOrDefault(id, 0))
+                            matched.put(id, score);
+                    });
+                }
+                if (candidates != null)
+                    matched.forEach((id, score) -> matched.put(id, score + candidates.getOrDefault(id, 0)));
+                scores = matched;
+                if (scores.isEmpty())
+                    return new ArrayList<>();
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Ранг упаковывается в long: старшие 32 бита - оценка, младшие - инвертированный id,
+       чтобы при равной оценке выше оказывался меньший id */
+    private static List<Integer> top(IntIntMap scores, int limit) {
+        final PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, scores.size()) + 1);
+        scores.forEach((id, score) -> {
+            best.add(((long) score << 32) | (~id & 0xFFFFFFFFL));
+            if (best.size() > limit)
+                best.poll();
+        });
+        final List<Integer> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(~(int) best.poll().longValue());
+        }
+        return result.reversed();
+    }
+
+    private static int score(int field, boolean exact) {
+        if ((field & NAME) != 0)
+            return exact ? 8 : 4;
+        return exact ? 2 : 1;
+    }
+
+    /* Слова и поля задачи в индексе совпадают с fields - текст не менялся или изменился без новых слов */
+    private boolean isIndexed(int id, String[] terms, Map<String, Integer> fields) {
+        if (terms.length != fields.size())
+            return false;
+        for (String term : terms) {
+            final Integer field = fields.get(term);
+            if (field == null || postings.get(term).getOrDefault(id, 0) != field)
+                return false;
+        }
+        return true;
+    }
+
+    private void unindex(int id, String[] terms) {
+        for (String term : terms) {
+            final IntIntMap ids = postings.get(term);
+            ids.remove(id, 0);
+            if (ids.isEmpty())
+                postings.remove(term);
+        }
+    }
+
+    /* Слова - последовательности букв и цифр в нижнем регистре, ё не отличается от е */
+    static List<String> tokens(String text) {
+        final List<String> result = new ArrayList<>();
+        if (text == null)
+            return result;
+        final StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                final char lower = Character.toLowerCase(c);
+                word.append(lower == 'ё' ? 'е' : lower);
+            } else if (!word.isEmpty()) {
+                result.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,290 @@
+package taskmanager;
+
+import exception.TaskTimeConflictException;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* Менеджер для сценариев, где чтений списков намного больше, чем изменений. Каждое изменение
+   увеличивает номер версии, а списки задач публикуются как неизменяемый снимок через AtomicReference.
+   Первый читатель после изменения собирает новый снимок, остальные получают готовые списки
+   без копирования и без блокировок. В списках лежат неизменяемые версии задач (Task.snapshot()):
+   их можно передавать между потоками, а для неизмененных задач новые объекты не создаются */
+public class SnapshotTaskManager extends ConcurrentTaskManager {
+
+    private record Snapshot(long version, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                            List<Task> prioritizedTasks) {
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public SnapshotTaskManager() {
+        super();
+    }
+
+    public SnapshotTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return snapshot().tasks();
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return snapshot().epics();
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return snapshot().subtasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return snapshot().prioritizedTasks();
+    }
+
+    /* Выборки идут мимо снимка, но отдают те же неизменяемые версии задач, что и списки.
+       Версии снимаются под всеми блокировками чтения: иначе писатель мог бы изменить задачу во время
+       копирования, а устаревшая копия осталась бы в Task.snapshot() до следующего изменения задачи */
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return readAll(() -> snapshots(super.getTasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return readAll(() -> snapshots(super.getEpics(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return readAll(() -> snapshots(super.getSubtasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        return readAll(() -> snapshots(super.getByStatus(type, status)));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return readAll(() -> snapshots(super.search(query, limit)));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return readAll(() -> snapshots(super.getTasksBetween(from, to)));
+    }
+
+    /* iterateTasksBetween забирает задачи страницами через schedulePage */
+    @Override
+    protected List<Task> schedulePage(LocalDateTime from, LocalDateTime to, Task last) {
+        return readAll(() -> snapshots(super.schedulePage(from, to, last)));
+    }
+
+    @Override
+    public List<Task> getTasksOverlapping(LocalDateTime from, LocalDateTime to) {
+        return readAll(() -> snapshots(super.getTasksOverlapping(from, to)));
+    }
+
+    @Override
+    public Task addTask(Task task) throws TaskTimeConflictException {
+        try {
+            return super.addTask(task);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        try {
+            return super.addEpic(epic);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) throws TaskTimeConflictException {
+        try {
+            return super.addSubtask(subtask);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public int removeAllTasks() {
+        try {
+            return super.removeAllTasks();
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public int removeAllEpics() {
+        try {
+            return super.removeAllEpics();
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public int removeAllSubtasks() {
+        try {
+            return super.removeAllSubtasks();
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Task removeTask(int id) {
+        try {
+            return super.removeTask(id);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Epic removeEpic(int id) {
+        try {
+            return super.removeEpic(id);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Subtask removeSubtask(int id) {
+        try {
+            return super.removeSubtask(id);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Task updateTask(Task task) throws TaskTimeConflictException {
+        try {
+            return super.updateTask(task);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        try {
+            return super.updateEpic(epic);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException {
+        try {
+            return super.updateSubtask(subtask);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> batch) throws TaskTimeConflictException {
+        try {
+            return super.addTasks(batch);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<Subtask> addSubtasks(Collection<Subtask> batch) throws TaskTimeConflictException {
+        try {
+            return super.addSubtasks(batch);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<Task> updateTasks(Collection<? extends Task> batch) throws TaskTimeConflictException {
+        try {
+            return super.updateTasks(batch);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public List<Task> removeTasks(int... ids) {
+        try {
+            return super.removeTasks(ids);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    protected TaskTransaction.Result commit(TaskTransaction transaction) throws TaskTimeConflictException {
+        try {
+            return super.commit(transaction);
+        } finally {
+            changed();
+        }
+    }
+
+    /* Версия увеличивается уже после изменения, а читатель запоминает версию до сборки снимка.
+       Поэтому снимок никогда не помечается версией новее, чем данные в нем */
+    private void changed() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        final long actual = version.get();
+        if (current != null && current.version() == actual)
+            return current;
+
+        /* Все четыре списка собираются под одними блокировками, иначе в одной версии могли бы
+           встретиться, например, подзадача и список эпиков уже без ее эпика */
+        Snapshot fresh = readAll(() -> new Snapshot(actual,
+                snapshots(super.getTasks()),
+                snapshots(super.getEpics()),
+                snapshots(super.getSubtasks()),
+                snapshots(super.getPrioritizedTasks())));
+        while (current == null || current.version() < actual) {
+            if (snapshot.compareAndSet(current, fresh))
+                break;
+            current = snapshot.get();
+        }
+        return fresh;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> List<T> snapshots(List<T> items) {
+        return items.stream().map(item -> (T) item.snapshot()).toList();
+    }
+}
@@ -0,0 +1,186 @@
+package taskmanager;
+
+import exception.ManagerSaveException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/* Фоновая запись снимка для режимов ASYNC и INTERVAL: изменения только увеличивают счетчик,
+   а один поток объединяет все накопившиеся изменения в одну запись файла.
+
+   Неудачная запись не сбрасывает счетчик: изменения остаются несохраненными и записываются повторно
+   с растущей паузой (от MIN_RETRY_NANOS до MAX_RETRY_NANOS) или сразу по flush(). Пока запись
+   не удается, changed() после учета изменения бросает ошибку последней попытки - изменение
+   остается в памяти и будет записано при следующей удачной попытке.
+   Пока поток работает, зарегистрирован shutdown hook, который при завершении JVM записывает
+   накопившиеся изменения. close() делает то же и останавливает поток; следующее изменение
+   запустит его снова */
+class SnapshotWriter implements Runnable {
+
+    private static final long MIN_RETRY_NANOS = 100_000_000L;
+    private static final long MAX_RETRY_NANOS = 60_000_000_000L;
+
+    private final Runnable writeSnapshot;
+    private final SavePolicy policy;
+    private final Object lock = new Object();
+
+    private int pendingChanges;
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private long lastWriteNanos = System.nanoTime();
+    private long retryNanos; // пауза перед повтором после неудачной записи, 0 - последняя запись удалась
+    private ManagerSaveException failure;
+    private boolean stopping;
+    private Thread thread;
+    private Thread shutdownHook;
+
+    SnapshotWriter(Runnable writeSnapshot, SavePolicy policy) {
+        this.writeSnapshot = writeSnapshot;
+        this.policy = policy;
+    }
+
+    void changed() {
+        synchronized (lock) {
+            pendingChanges++;
+            start();
+            lock.notifyAll();
+            if (failure != null)
+                throw failure;
+        }
+    }
+
+    /* Завершается после того, как на диск (с fsync) попадет снимок, включающий все изменения,
+       сделанные до вызова */
+    CompletableFuture<Void> flush() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (lock) {
+            waiters.add(future);
+            start();
+            lock.notifyAll();
+        }
+        return future;
+    }
+
+    /* Записывает накопившиеся изменения и останавливает поток. Если последняя попытка записи
+       не удалась, бросает ее исключение */
+    void close() {
+        final Thread current;
+        synchronized (lock) {
+            if (thread == null)
+                return;
+            stopping = true;
+            lock.notifyAll();
+            current = thread;
+        }
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        final Thread hook;
+        synchronized (lock) {
+            thread = null;
+            stopping = false;
+            hook = shutdownHook;
+            shutdownHook = null;
+        }
+        if (hook != Thread.currentThread()) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // JVM уже завершается, hook будет вызван и ничего не найдет
+            }
+        }
+        synchronized (lock) {
+            if (pendingChanges > 0 && failure != null)
+                throw failure;
+            // изменения и flush(), пришедшие во время остановки, не должны потеряться
+            if (pendingChanges > 0 || !waiters.isEmpty())
+                start();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final List<CompletableFuture<Void>> batch;
+            final int changes;
+            synchronized (lock) {
+                long waitNanos;
+                while ((waitNanos = nanosUntilWrite()) > 0) {
+                    if (stopping)
+                        return;
+                    try {
+                        if (waitNanos == Long.MAX_VALUE) {
+                            lock.wait();
+                        } else {
+                            lock.wait(Math.max(1, waitNanos / 1_000_000));
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch = waiters;
+                waiters = new ArrayList<>();
+                changes = pendingChanges;
+                pendingChanges = 0;
+            }
+
+            try {
+                writeSnapshot.run();
+                synchronized (lock) {
+                    retryNanos = 0;
+                    failure = null;
+                    lastWriteNanos = System.nanoTime();
+                }
+                batch.forEach(future -> future.complete(null));
+            } catch (RuntimeException e) {
+                final boolean stopped;
+                synchronized (lock) {
+                    pendingChanges += changes;
+                    retryNanos = retryNanos == 0 ? MIN_RETRY_NANOS : Math.min(retryNanos * 2, MAX_RETRY_NANOS);
+                    failure = e instanceof ManagerSaveException saveException
+                            ? saveException : new ManagerSaveException("Не удалось записать снимок: " + e.getMessage());
+                    lastWriteNanos = System.nanoTime();
+                    stopped = stopping; // при остановке - одна попытка, ошибку получит close()
+                }
+                batch.forEach(future -> future.completeExceptionally(e));
+                if (stopped)
+                    return;
+            }
+        }
+    }
+
+    private long nanosUntilWrite() {
+        if (!waiters.isEmpty())
+            return 0;
+        if (pendingChanges == 0)
+            return Long.MAX_VALUE;
+        if (stopping)
+            return 0;
+        if (retryNanos > 0)
+            return retryNanos - (System.nanoTime() - lastWriteNanos);
+        if (policy.mode() != SavePolicy.Mode.INTERVAL || pendingChanges >= policy.maxPendingChanges())
+            return 0;
+        return policy.interval().toNanos() - (System.nanoTime() - lastWriteNanos);
+    }
+
+    private void start() {
+        if (thread != null)
+            return;
+        thread = new Thread(this, "snapshot-writer");
+        thread.setDaemon(true);
+        shutdownHook = new Thread(() -> {
+            try {
+                close();
+            } catch (RuntimeException e) {
+                // вызывающего кода уже нет, остается только сообщить о потерянных изменениях
+                System.err.println(e.getMessage());
+            }
+        }, "snapshot-writer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        thread.start();
+    }
+}
@@ -0,0 +1,51 @@
+package taskmanager;
+
+import intcollections.IntSet;
+import tasks.Status;
+import tasks.TaskType;
+
+/* id задач по виду и статусу: количество - O(1), перечисление - O(k).
+   Множества разных видов независимы, поэтому ConcurrentTaskManager может менять задачи и эпики
+   под разными блокировками */
+class StatusIndex {
+
+    private final IntSet[][] members;
+
+    StatusIndex() {
+        members = new IntSet[TaskType.values().length][Status.values().length];
+        for (IntSet[] byStatus : members) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new IntSet();
+            }
+        }
+    }
+
+    /* Запоминает текущий статус задачи, убирая ее из множества прежнего статуса */
+    void put(TaskType type, int id, Status status) {
+        for (IntSet set : members[type.ordinal()]) {
+            set.remove(id);
+        }
+        if (status != null)
+            members[type.ordinal()][status.ordinal()].add(id);
+    }
+
+    void remove(TaskType type, int id) {
+        for (IntSet set : members[type.ordinal()]) {
+            set.remove(id);
+        }
+    }
+
+    void clear(TaskType type) {
+        for (IntSet set : members[type.ordinal()]) {
+            set.clear();
+        }
+    }
+
+    int count(TaskType type, Status status) {
+        return members[type.ordinal()][status.ordinal()].size();
+    }
+
+    IntSet ids(TaskType type, Status status) {
+        return members[type.ordinal()][status.ordinal()];
+    }
+}
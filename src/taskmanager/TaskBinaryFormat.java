@@ -0,0 +1,252 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/* Двоичный формат снимка:
+   заголовок - MAGIC (int), VERSION (int), последнее поколение журнала, вошедшее в снимок (long);
+   запись    - тип (byte), id (int), имя и описание (длина int + байты UTF-8, длина -1 - null),
+               статус (byte, -1 - null), id эпика (int, только у подзадачи),
+               время старта (секунды от эпохи UTC long + наносекунды int, NULL_TIME - null),
+               длительность в минутах (long, NULL_TIME - null).
+   У эпика, как и в CSV, сохраняются только id, имя и описание - остальное вычисляется по подзадачам.
+   Снимки версии 1 записаны без поколения журнала и читаются как не отражающие ни одной записи журнала */
+final class TaskBinaryFormat {
+
+    static final int MAGIC = 0x4B42414E; // "KBAN"
+    static final int VERSION = 2;
+
+    private static final byte TASK = 0;
+    private static final byte EPIC = 1;
+    private static final byte SUBTASK = 2;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Status[] STATUSES = Status.values();
+
+    private TaskBinaryFormat() {
+    }
+
+    static boolean isBinary(Path path) {
+        if (!Files.exists(path))
+            return false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0)
+                    return false;
+            }
+            return header.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void write(WritableByteChannel channel, Collection<Task> tasks, Collection<Epic> epics,
+                      Collection<Subtask> subtasks, long journal) throws IOException {
+        Writer writer = new Writer(channel);
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+        writer.putLong(journal);
+        for (Task task : tasks) {
+            writer.put(TASK, task);
+        }
+        for (Epic epic : epics) {
+            writer.put(EPIC, epic);
+        }
+        for (Subtask subtask : subtasks) {
+            writer.put(SUBTASK, subtask);
+        }
+        writer.flush();
+    }
+
+    /* Возвращает последнее поколение журнала, вошедшее в снимок, -1 - снимок версии 1 */
+    static long read(Path path, Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            if (!reader.ensure(2 * Integer.BYTES) || reader.buffer.getInt() != MAGIC)
+                throw new LoadTaskException("Файл '" + path.getFileName() + "' не является двоичным снимком задач");
+            int version = reader.buffer.getInt();
+            if (version != 1 && version != VERSION)
+                throw new LoadTaskException("Неподдерживаемая версия двоичного снимка: " + version);
+            long journal = -1;
+            if (version >= 2) {
+                reader.require(Long.BYTES);
+                journal = reader.buffer.getLong();
+            }
+
+            while (reader.ensure(1)) {
+                consumer.accept(reader.next());
+            }
+            return journal;
+        }
+    }
+
+    private static class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(byte type, Task task) throws IOException {
+            ensure(1 + Integer.BYTES);
+            buffer.put(type);
+            buffer.putInt(task.getId());
+            putString(task.getName());
+            putString(task.getDescription());
+            if (type == EPIC)
+                return;
+
+            ensure(1 + Integer.BYTES + 2 * Long.BYTES + Integer.BYTES);
+            buffer.put(task.getStatus() == null ? -1 : (byte) task.getStatus().ordinal());
+            if (type == SUBTASK)
+                buffer.putInt(((Subtask) task).getEpicId());
+            LocalDateTime startTime = task.getStartTime();
+            if (startTime == null) {
+                buffer.putLong(NULL_TIME);
+                buffer.putInt(0);
+            } else {
+                buffer.putLong(startTime.toEpochSecond(ZoneOffset.UTC));
+                buffer.putInt(startTime.getNano());
+            }
+            buffer.putLong(task.getDuration() == null ? NULL_TIME : task.getDuration().toMinutes());
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        private void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining())
+                    flush();
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+        private byte[] chars = new byte[256];
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        Task next() throws IOException {
+            require(1 + Integer.BYTES);
+            final byte type = buffer.get();
+            final int id = buffer.getInt();
+            final String name = getString();
+            final String description = getString();
+            if (type == EPIC)
+                return new Epic(id, name, description);
+            if (type != TASK && type != SUBTASK)
+                throw new LoadTaskException("Неподдерживаемый тип задачи в двоичном снимке: " + type);
+
+            require(1 + (type == SUBTASK ? Integer.BYTES : 0) + 2 * Long.BYTES + Integer.BYTES);
+            final byte status = buffer.get();
+            final int epicId = type == SUBTASK ? buffer.getInt() : 0;
+            final long seconds = buffer.getLong();
+            final int nanos = buffer.getInt();
+            final long minutes = buffer.getLong();
+
+            LocalDateTime startTime = seconds == NULL_TIME ? null
+                    : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+            Duration duration = minutes == NULL_TIME ? null : Duration.ofMinutes(minutes);
+            if (status >= STATUSES.length || status < -1)
+                throw new LoadTaskException("Неподдерживаемый статус задачи в двоичном снимке: " + status);
+            Status taskStatus = status < 0 ? null : STATUSES[status];
+            if (type == SUBTASK)
+                return new Subtask(id, name, description, taskStatus, epicId, startTime, duration);
+            return new Task(id, name, description, taskStatus, startTime, duration);
+        }
+
+        private String getString() throws IOException {
+            require(Integer.BYTES);
+            final int length = buffer.getInt();
+            if (length < 0)
+                return null;
+            if (chars.length < length)
+                chars = new byte[Math.max(length, chars.length * 2)];
+            int offset = 0;
+            while (offset < length) {
+                if (!buffer.hasRemaining())
+                    require(1);
+                int count = Math.min(buffer.remaining(), length - offset);
+                buffer.get(chars, offset, count);
+                offset += count;
+            }
+            return new String(chars, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (!ensure(bytes))
+                throw new LoadTaskException("Двоичный снимок задач обрывается на середине записи");
+        }
+
+        /* Дочитывает данные из канала, пока в буфере не окажется хотя бы bytes байт.
+           Возвращает false, если файл закончился раньше */
+        boolean ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes)
+                return true;
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip();
+                    return buffer.remaining() >= bytes;
+                }
+            }
+            buffer.flip();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package taskmanager;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+/* Событие изменения менеджера. task - неизменяемый снимок версии задачи на момент события
+   (для REMOVED - последняя версия). EPIC_STATUS и EPIC_TIME сообщают о пересчете статуса и времени
+   эпика после изменения его подзадач.
+
+   sequence растет на единицу с каждым событием менеджера. Медленный подписчик теряет события,
+   не поместившиеся в его буфер: пропуск в sequence означает, что состояние нужно перечитать целиком */
+public record TaskChange(long sequence, Kind kind, Task task) {
+
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        REMOVED,
+        EPIC_STATUS,
+        EPIC_TIME
+    }
+
+    public int id() {
+        return task.getId();
+    }
+
+    public TaskType type() {
+        if (task instanceof Epic)
+            return TaskType.EPIC;
+        if (task instanceof Subtask)
+            return TaskType.SUBTASK;
+        return TaskType.TASK;
+    }
+}
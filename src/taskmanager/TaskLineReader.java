@@ -0,0 +1,449 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/* Однопроходный разбор CSV задач прямо из байтового буфера. Строка целиком находится в буфере,
+   поля читаются курсором: числа, статусы и даты разбираются из байтов без промежуточных строк,
+   String создается только для имени и описания.
+   Поле в кавычках может содержать запятые, переводы строк и кавычки (удвоенные, как в RFC 4180).
+   Поля без кавычек обрезаются по краям, как раньше делал split + trim; null без кавычек - это null,
+   "null" в кавычках - строка.
+   Файлы старого формата (setLegacy) писались без кавычек: строка кончается на первом переводе строки,
+   поле - на первой запятой, кавычки и null - обычный текст. Иначе имя вида "Важно" купить
+   прочиталось бы как поле в кавычках */
+final class TaskLineReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NULL = bytes("null");
+    private static final Status[] STATUSES = Status.values();
+    private static final byte[][] STATUS_NAMES = names(STATUSES);
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final byte[][] TYPE_NAMES = names(TYPES);
+
+    /* Состояния поиска конца строки */
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int AFTER_QUOTED = 4;
+
+    private final ReadableByteChannel channel;
+    private byte[] buffer;
+    private int limit;
+    private boolean eof;
+
+    private long discarded; // байт, уже вытесненных из буфера
+    private int lineStart;
+    private int lineEnd; // без '\n'
+    private int next;    // начало следующей строки
+
+    private int position;
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean quoted;
+    private boolean escapedQuotes;
+    private boolean legacy;
+
+    TaskLineReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /* Разбор уже прочитанных данных: байты [from, to) */
+    TaskLineReader(byte[] data, int from, int to) {
+        this.channel = null;
+        this.buffer = data;
+        this.next = from;
+        this.limit = to;
+        this.eof = true;
+    }
+
+    /* Разбор следующих строк по правилам старого формата без кавычек */
+    void setLegacy(boolean legacy) {
+        this.legacy = legacy;
+    }
+
+    /* Переходит к следующей непустой строке. false - данные закончились */
+    boolean nextRecord() throws IOException {
+        while (nextLine()) {
+            if (!isBlank())
+                return true;
+        }
+        return false;
+    }
+
+    /* Пропускает строку целиком, например заголовок. false - данные закончились */
+    boolean skipLine() throws IOException {
+        return nextLine();
+    }
+
+    /* false - текущая строка оборвалась на конце данных, не дойдя до перевода строки */
+    boolean isLineComplete() {
+        return next > lineEnd;
+    }
+
+    /* Смещение начала текущей строки от начала данных канала */
+    long lineOffset() {
+        return discarded + lineStart;
+    }
+
+    /* Первый символ строки - тип записи журнала */
+    char readPrefix() {
+        if (position >= lineEnd)
+            throw new LoadTaskException("Неверный формат строки");
+        return (char) (buffer[position++] & 0xFF);
+    }
+
+    Task readTask() {
+        final TaskType type = readTaskType();
+        return switch (type) {
+            case TASK -> new Task(readInt(), readString(), readString(), readStatus(), readDateTime(), readDuration());
+            case EPIC -> new Epic(readInt(), readString(), readString());
+            case SUBTASK -> {
+                final int id = readInt();
+                final String name = readString();
+                final String description = readString();
+                final Status status = readStatus();
+                final int epicId = readInt();
+                yield new Subtask(id, name, description, status, epicId, readDateTime(), readDuration());
+            }
+            default -> throw new LoadTaskException("Неподдерживаемый тип задачи " + type);
+        };
+    }
+
+    TaskType readTaskType() {
+        nextField();
+        final int index = match(TYPE_NAMES);
+        if (index < 0)
+            throw new LoadTaskException("Неподдерживаемый тип задачи " + fieldText());
+        return TYPES[index];
+    }
+
+    long readLong() {
+        nextField();
+        return parseLong();
+    }
+
+    int readInt() {
+        nextField();
+        final long value = parseLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new LoadTaskException("Неподдерживаемый формат строки: " + lineText());
+        return (int) value;
+    }
+
+    String readString() {
+        nextField();
+        if (legacy)
+            return fieldText();
+        if (!quoted && isNull())
+            return null;
+        final String value = fieldText();
+        return escapedQuotes ? value.replace("\"\"", "\"") : value;
+    }
+
+    private Status readStatus() {
+        nextField();
+        final int index = match(STATUS_NAMES);
+        if (index < 0)
+            throw new LoadTaskException("Неподдерживаемый формат строки: " + lineText());
+        return STATUSES[index];
+    }
+
+    /* Как и прежде, нераспознанное время означает, что время не задано */
+    private LocalDateTime readDateTime() {
+        nextField();
+        if (isNull() || fieldStart == fieldEnd)
+            return null;
+        try {
+            LocalDateTime time = parseDateTime();
+            return time != null ? time : LocalDateTime.parse(fieldText());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /* Как и прежде, нераспознанная длительность означает, что она не задана */
+    private Duration readDuration() {
+        nextField();
+        final long minutes = parseLongOrMin();
+        if (minutes == Long.MIN_VALUE || minutes < Integer.MIN_VALUE || minutes > Integer.MAX_VALUE)
+            return null;
+        return Duration.ofMinutes(minutes);
+    }
+
+    private boolean nextLine() throws IOException {
+        int index = next;
+        int state = FIELD_START;
+        while (true) {
+            if (index == limit) {
+                final int scanned = index - next;
+                if (eof || !fill()) {
+                    if (next == limit)
+                        return false;
+                    setLine(limit, limit);
+                    return true;
+                }
+                index = next + scanned;
+                continue;
+            }
+            final byte b = buffer[index];
+            if (legacy) {
+                if (b == '\n') {
+                    setLine(index, index + 1);
+                    return true;
+                }
+                index++;
+                continue;
+            }
+            switch (state) {
+                case FIELD_START -> {
+                    if (b == '"')
+                        state = QUOTED;
+                    else if (b == '\n') {
+                        setLine(index, index + 1);
+                        return true;
+                    } else if (b != ',' && (b & 0xFF) > ' ')
+                        state = UNQUOTED;
+                }
+                case UNQUOTED, AFTER_QUOTED -> {
+                    if (b == ',')
+                        state = FIELD_START;
+                    else if (b == '\n') {
+                        setLine(index, index + 1);
+                        return true;
+                    }
+                }
+                case QUOTED -> {
+                    if (b == '"')
+                        state = QUOTE_IN_QUOTED;
+                }
+                default -> { // QUOTE_IN_QUOTED
+                    if (b == '"')
+                        state = QUOTED;
+                    else if (b == ',')
+                        state = FIELD_START;
+                    else if (b == '\n') {
+                        setLine(index, index + 1);
+                        return true;
+                    } else
+                        state = AFTER_QUOTED;
+                }
+            }
+            index++;
+        }
+    }
+
+    private void setLine(int end, int following) {
+        lineStart = next;
+        lineEnd = end;
+        next = following;
+        position = lineStart;
+    }
+
+    /* Дочитывает данные из канала. Незаконченная строка переносится в начало буфера,
+       при необходимости буфер увеличивается. false - канал закончился */
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            eof = true;
+            return false;
+        }
+        final int scanned = limit - next;
+        if (next > 0) {
+            discarded += next;
+            System.arraycopy(buffer, next, buffer, 0, scanned);
+            limit = scanned;
+            next = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        final ByteBuffer target = ByteBuffer.wrap(buffer, limit, buffer.length - limit);
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(target);
+        }
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private void nextField() {
+        if (position > lineEnd)
+            throw new LoadTaskException("Неверный формат строки");
+        int index = position;
+        while (index < lineEnd && (buffer[index] & 0xFF) <= ' ') {
+            index++;
+        }
+
+        escapedQuotes = false;
+        if (!legacy && index < lineEnd && buffer[index] == '"') {
+            quoted = true;
+            fieldStart = ++index;
+            while (true) {
+                if (index >= lineEnd)
+                    throw new LoadTaskException("Незакрытая кавычка в строке: " + lineText());
+                if (buffer[index] == '"') {
+                    if (index + 1 < lineEnd && buffer[index + 1] == '"') {
+                        escapedQuotes = true;
+                        index += 2;
+                        continue;
+                    }
+                    break;
+                }
+                index++;
+            }
+            fieldEnd = index++;
+            /* После закрывающей кавычки - только пробелы. Иначе кавычки разобраны неверно, например
+               непарная кавычка склеила несколько записей в одну, и часть данных потерялась бы */
+            while (index < lineEnd && buffer[index] != ',') {
+                if ((buffer[index] & 0xFF) > ' ')
+                    throw new LoadTaskException("Текст после закрывающей кавычки в строке: " + lineText());
+                index++;
+            }
+        } else {
+            quoted = false;
+            fieldStart = index;
+            while (index < lineEnd && buffer[index] != ',') {
+                index++;
+            }
+            int end = index;
+            while (end > fieldStart && (buffer[end - 1] & 0xFF) <= ' ') {
+                end--;
+            }
+            fieldEnd = end;
+        }
+        position = index + 1;
+    }
+
+    private boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if ((buffer[i] & 0xFF) > ' ')
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isNull() {
+        return Arrays.equals(buffer, fieldStart, fieldEnd, NULL, 0, NULL.length);
+    }
+
+    private int match(byte[][] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (Arrays.equals(buffer, fieldStart, fieldEnd, names[i], 0, names[i].length))
+                return i;
+        }
+        return -1;
+    }
+
+    private long parseLong() {
+        final long value = parseLongOrMin();
+        if (value == Long.MIN_VALUE)
+            throw new LoadTaskException("Неподдерживаемый формат строки: " + lineText());
+        return value;
+    }
+
+    /* Long.MIN_VALUE - поле не является числом */
+    private long parseLongOrMin() {
+        int index = fieldStart;
+        final boolean negative = index < fieldEnd && buffer[index] == '-';
+        if (negative || index < fieldEnd && buffer[index] == '+')
+            index++;
+        if (index == fieldEnd || fieldEnd - index > 18)
+            return Long.MIN_VALUE;
+        long value = 0;
+        for (; index < fieldEnd; index++) {
+            final int digit = buffer[index] - '0';
+            if (digit < 0 || digit > 9)
+                return Long.MIN_VALUE;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /* Быстрый разбор yyyy-MM-ddTHH:mm[:ss[.fffffffff]]. null - поле в другом виде, его разберет
+       LocalDateTime.parse */
+    private LocalDateTime parseDateTime() {
+        final int length = fieldEnd - fieldStart;
+        if (length < 16 || !at(4, '-') || !at(7, '-') || !at(10, 'T') || !at(13, ':'))
+            return null;
+        final int year = digits(0, 4);
+        final int month = digits(5, 2);
+        final int day = digits(8, 2);
+        final int hour = digits(11, 2);
+        final int minute = digits(14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || !at(16, ':'))
+                return null;
+            second = digits(17, 2);
+            if (length > 19) {
+                final int fraction = length - 20;
+                if (!at(19, '.') || fraction < 1 || fraction > 9)
+                    return null;
+                nano = digits(20, fraction);
+                for (int i = fraction; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0)
+            return null;
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private boolean at(int offset, char c) {
+        return buffer[fieldStart + offset] == c;
+    }
+
+    /* -1, если среди символов есть не цифра */
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int i = fieldStart + offset, end = i + count; i < end; i++) {
+            final int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String fieldText() {
+        return new String(buffer, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+    }
+
+    /* Текущая строка целиком, например заголовок после skipLine() */
+    String lineText() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = bytes(values[i].name());
+        }
+        return names;
+    }
+}
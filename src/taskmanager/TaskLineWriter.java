@@ -0,0 +1,62 @@
+package taskmanager;
+
+import tasks.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Запись строк CSV в поток без промежуточных String и byte[] на каждую строку: задача дописывает
+   себя в переиспользуемый StringBuilder (Task.appendLine), символы кодируются в UTF-8 прямо
+   в буфер вывода. Результат побайтно совпадает с toLine().getBytes(UTF_8), включая замену
+   непарных суррогатов на '?' */
+final class TaskLineWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final StringBuilder line = new StringBuilder(256);
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    TaskLineWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void write(Task task) throws IOException {
+        line.setLength(0);
+        task.appendLine(line);
+        write(line);
+    }
+
+    void write(CharSequence text) throws IOException {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (position + 4 > buffer.length)
+                flush();
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
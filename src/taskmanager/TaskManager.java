@@ -5,8 +5,15 @@ import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 public interface TaskManager {
     Task addTask(Task task) throws TaskTimeConflictException;
@@ -24,12 +31,46 @@ public interface TaskManager {
 
     List<Task> getTasks();
 
+    /* Постраничная выдача по возрастанию id: не более limit элементов с id больше afterId.
+       Первая страница - afterId = 0, следующая - с id последнего элемента предыдущей */
+    List<Task> getTasks(int afterId, int limit);
+
     List<Task> getPrioritizedTasks();
 
+    /* Число задач данного вида в статусе status - без обхода задач */
+    int countByStatus(TaskType type, Status status);
+
+    /* Задачи данного вида в статусе status; в историю просмотров не попадают */
+    List<Task> getByStatus(TaskType type, Status status);
+
+    /* Поиск задач всех видов по словам названия и описания. Каждое слово запроса - префикс,
+       найденная задача содержит все слова; сначала идут лучшие совпадения, не более limit задач */
+    List<Task> search(String query, int limit);
+
+    /* Самое раннее время не раньше notBefore, куда помещается задача длительностью length */
+    LocalDateTime findFreeSlot(Duration length, LocalDateTime notBefore);
+
+    /* Добавляет задачу или подзадачу в первое свободное место не раньше notBefore.
+       Длительность задачи должна быть задана, время старта заменяется найденным */
+    Task addTaskAutoScheduled(Task task, LocalDateTime notBefore);
+
+    /* Задачи из расписания, которые начинаются в полуинтервале [from, to), по времени старта */
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    /* То же без копирования: задачи отдаются по мере обхода */
+    Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    /* Задачи из расписания, пересекающиеся с отрезком [from, to], по времени старта */
+    List<Task> getTasksOverlapping(LocalDateTime from, LocalDateTime to);
+
     List<Epic> getEpics();
 
     List<Subtask> getSubtasks();
 
+    List<Epic> getEpics(int afterId, int limit);
+
+    List<Subtask> getSubtasks(int afterId, int limit);
+
     List<Subtask> getSubtasksByEpicId(int epicId);
 
 
@@ -62,5 +103,32 @@ public interface TaskManager {
 
     Subtask updateSubtask(Subtask subtask) throws TaskTimeConflictException;
 
+    /* Пакетные операции: пересечения по времени проверяются для всей пачки сразу (и внутри пачки,
+       и с расписанием), при конфликте не применяется ничего. Статус и время каждого затронутого эпика
+       пересчитываются один раз. Элементы, которые одиночная операция пропустила бы (null, подзадача
+       без эпика, обновление несуществующей задачи), пропускаются и в результат не попадают */
+    List<Task> addTasks(Collection<Task> tasks) throws TaskTimeConflictException;
+
+    List<Subtask> addSubtasks(Collection<Subtask> subtasks) throws TaskTimeConflictException;
+
+    /* Задачи, подзадачи и эпики вперемешку, каждый обновляется как в updateTask/updateSubtask/updateEpic */
+    List<Task> updateTasks(Collection<? extends Task> items) throws TaskTimeConflictException;
+
+    /* Удаляет задачи, подзадачи и эпики (вместе с их подзадачами) с указанными id */
+    List<Task> removeTasks(int... ids);
+
+
+    /* Поток событий об изменениях задач, включая пересчет статуса и времени эпиков */
+    Flow.Publisher<TaskChange> changes();
+
+    /* Изменения из work применяются вместе после того, как work завершится: пересечения по времени
+       проверяются один раз для итогового состояния, при конфликте не применяется ничего */
+    void inTransaction(Consumer<Transaction> work) throws TaskTimeConflictException;
+
+
     List<Task> getHistory();
+
+    /* Страница истории в порядке просмотров: не более limit записей после просмотра задачи afterId.
+       Первая страница - afterId = 0; если задачи afterId в истории уже нет, страница пустая */
+    List<Task> getHistory(int afterId, int limit);
 }
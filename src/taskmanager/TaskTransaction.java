@@ -0,0 +1,209 @@
+package taskmanager;
+
+import intcollections.IntObjectMap;
+import intcollections.IntSet;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/* Журнал изменений транзакции. При фиксации stage() проходит изменения по порядку поверх
+   зафиксированного состояния и вычисляет итоговые версии затронутых задач, не трогая менеджер.
+   Изменения, которые одиночная операция пропустила бы (обновление или удаление отсутствующей
+   задачи, подзадача без эпика), отбрасываются */
+final class TaskTransaction implements Transaction {
+
+    enum Kind { ADD, UPDATE, REMOVE }
+
+    record Change(Kind kind, TaskType type, Task item, int id) {
+    }
+
+    /* Итог фиксации для сохранения: итоговые версии добавленных и измененных задач в порядке
+       первого изменения и id задач, которых после фиксации не стало */
+    record Result(List<Task> upserted, List<Integer> removed) {
+    }
+
+    private final IntSupplier ids;
+    private final List<Change> changes = new ArrayList<>();
+    private boolean closed;
+
+    private final IntObjectMap<Task> staged = new IntObjectMap<>();
+    private final IntSet removed = new IntSet();
+    private final IntSet touched = new IntSet();
+    private final List<Integer> touchOrder = new ArrayList<>();
+
+    TaskTransaction(IntSupplier ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return add(TaskType.TASK, task);
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return add(TaskType.EPIC, epic);
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return add(TaskType.SUBTASK, subtask);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        record(Kind.UPDATE, TaskType.TASK, task, task.getId());
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        record(Kind.UPDATE, TaskType.EPIC, epic, epic.getId());
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        record(Kind.UPDATE, TaskType.SUBTASK, subtask, subtask.getId());
+    }
+
+    @Override
+    public void removeTask(int id) {
+        record(Kind.REMOVE, TaskType.TASK, null, id);
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        record(Kind.REMOVE, TaskType.EPIC, null, id);
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        record(Kind.REMOVE, TaskType.SUBTASK, null, id);
+    }
+
+    private <T extends Task> T add(TaskType type, T item) {
+        if (item == null)
+            return null;
+        checkOpen();
+        item.setId(ids.getAsInt());
+        changes.add(new Change(Kind.ADD, type, item, item.getId()));
+        return item;
+    }
+
+    private void record(Kind kind, TaskType type, Task item, int id) {
+        checkOpen();
+        changes.add(new Change(kind, type, item, id));
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("Транзакция уже завершена");
+    }
+
+    /* Закрывает транзакцию и возвращает изменения, которые будут применены. committed - задача
+       с данным id в зафиксированном состоянии или null */
+    List<Change> stage(IntFunction<Task> committed) {
+        closed = true;
+        final List<Change> effective = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            final Task current = lookup(change.id(), committed);
+            switch (change.kind()) {
+                case ADD -> {
+                    if (change.type() == TaskType.SUBTASK
+                            && !(lookup(((Subtask) change.item()).getEpicId(), committed) instanceof Epic))
+                        continue;
+                    stage(change.id(), change.item());
+                }
+                case UPDATE -> {
+                    if (current == null || typeOf(current) != change.type())
+                        continue;
+                    /* Подзадача переносится в другой эпик, только если он существует к этому месту транзакции */
+                    if (current instanceof Subtask old && !(lookup(((Subtask) change.item()).getEpicId(),
+                            committed) instanceof Epic))
+                        ((Subtask) change.item()).setEpicId(old.getEpicId());
+                    stage(change.id(), change.item());
+                }
+                case REMOVE -> {
+                    if (current == null || typeOf(current) != change.type())
+                        continue;
+                    if (current instanceof Epic epic)
+                        removeSubtasksOf(epic, committed);
+                    unstage(change.id());
+                }
+            }
+            effective.add(change);
+        }
+        return effective;
+    }
+
+    /* id всех задач, затронутых транзакцией, в порядке первого изменения */
+    List<Integer> touched() {
+        return touchOrder;
+    }
+
+    boolean isTouched(int id) {
+        return touched.contains(id);
+    }
+
+    /* Итоговые версии задач, которые после фиксации останутся в менеджере */
+    List<Task> stagedItems() {
+        final List<Task> items = new ArrayList<>(staged.size());
+        for (int id : touchOrder) {
+            final Task item = staged.get(id);
+            if (item != null)
+                items.add(item);
+        }
+        return items;
+    }
+
+    private Task lookup(int id, IntFunction<Task> committed) {
+        if (removed.contains(id))
+            return null;
+        final Task item = staged.get(id);
+        return item != null ? item : committed.apply(id);
+    }
+
+    private void removeSubtasksOf(Epic epic, IntFunction<Task> committed) {
+        /* Зафиксированные подзадачи эпика, если транзакция не перенесла их в другой эпик */
+        if (committed.apply(epic.getId()) instanceof Epic stored)
+            stored.getSubtasks().forEachInt(id -> {
+                if (lookup(id, committed) instanceof Subtask subtask && subtask.getEpicId() == epic.getId())
+                    unstage(id);
+            });
+        final List<Integer> added = new ArrayList<>();
+        staged.forEachKey(id -> {
+            if (staged.get(id) instanceof Subtask subtask && subtask.getEpicId() == epic.getId())
+                added.add(id);
+        });
+        added.forEach(this::unstage);
+    }
+
+    private void stage(int id, Task item) {
+        touch(id);
+        staged.put(id, item);
+    }
+
+    private void unstage(int id) {
+        touch(id);
+        staged.remove(id);
+        removed.add(id);
+    }
+
+    private void touch(int id) {
+        if (touched.add(id))
+            touchOrder.add(id);
+    }
+
+    private static TaskType typeOf(Task item) {
+        if (item instanceof Epic)
+            return TaskType.EPIC;
+        if (item instanceof Subtask)
+            return TaskType.SUBTASK;
+        return TaskType.TASK;
+    }
+}
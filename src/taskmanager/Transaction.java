@@ -0,0 +1,33 @@
+package taskmanager;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+/* Изменения внутри TaskManager.inTransaction. Ничего не применяется до фиксации: задачам сразу
+   выдается id (на новый эпик можно ссылаться из подзадач той же транзакции), а проверка пересечений
+   по времени выполняется один раз для итогового состояния. Если итоговое состояние некорректно,
+   менеджер остается без изменений.
+   updateSubtask может перенести подзадачу в другой эпик, в том числе добавленный раньше в этой же
+   транзакции; состояние обоих эпиков пересчитывается */
+public interface Transaction {
+    Task addTask(Task task);
+
+    Epic addEpic(Epic epic);
+
+    Subtask addSubtask(Subtask subtask);
+
+
+    void updateTask(Task task);
+
+    void updateEpic(Epic epic);
+
+    void updateSubtask(Subtask subtask);
+
+
+    void removeTask(int id);
+
+    void removeEpic(int id);
+
+    void removeSubtask(int id);
+}
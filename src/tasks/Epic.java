@@ -1,41 +1,44 @@
 package tasks;
 
 import exception.LoadTaskException;
+import intcollections.IntSet;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 
 public class Epic extends Task {
-    private HashSet<Integer> subtasks;
+    private IntSet subtasks;
     private LocalDateTime endTime;
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     public Epic(int id, String name, String description) {
         super(id, name, description, Status.NEW, null, null);
-        subtasks = new HashSet<>();
+        subtasks = new IntSet();
     }
 
     public Epic(String name, String description) {
         this(0, name, description);
     }
 
-    public HashSet<Integer> getSubtasks() {
+    public IntSet getSubtasks() {
         return subtasks;
     }
 
     public void removeSubtask(int id) {
+        beforeChange();
         subtasks.remove(id);
     }
 
     public void removeAllSubtasks() {
+        beforeChange();
         subtasks.clear();
     }
 
-    public boolean addSubtask(Integer id) {
+    public boolean addSubtask(int id) {
+        beforeChange();
         return subtasks.add(id);
     }
 
@@ -45,9 +48,21 @@ public class Epic extends Task {
     }
 
     public void setEndTime(LocalDateTime endTime) {
+        beforeChange();
         this.endTime = endTime;
     }
 
+    @Override
+    public Epic snapshot() {
+        return (Epic) super.snapshot();
+    }
+
+    @Override
+    protected void freeze() {
+        super.freeze();
+        subtasks.freeze();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -80,11 +95,12 @@ public class Epic extends Task {
     }
 
     @Override
-    public String toLine() {
-        return String.format("EPIC, %d, %s, %s\n",
-                id,
-                name,
-                description);
+    public void appendLine(StringBuilder out) {
+        out.append("EPIC, ").append(id).append(", ");
+        LineFormat.appendText(out, name);
+        out.append(", ");
+        LineFormat.appendText(out, description);
+        out.append('\n');
     }
 
     public static Epic fromLine(List<String> parts) throws LoadTaskException {
@@ -104,7 +120,7 @@ public class Epic extends Task {
     @Override
     public Epic clone() {
         Epic clone = (Epic) super.clone();
-        clone.subtasks = new HashSet<>(this.subtasks);
+        clone.subtasks = new IntSet(this.subtasks);
         return clone;
     }
 }
@@ -0,0 +1,121 @@
+package tasks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/* Запись полей строки CSV в StringBuilder без форматтера и промежуточных строк.
+   Вывод совпадает с DateTimeFormatter.ISO_LOCAL_DATE_TIME и LocalDateTime.toString();
+   годы вне 0..9999 (со знаком) редки, для них используется стандартное форматирование */
+final class LineFormat {
+
+    private LineFormat() {
+    }
+
+    /* Как ISO_LOCAL_DATE_TIME: секунды выводятся всегда, доли секунды - без хвостовых нулей */
+    static void appendIsoDateTime(StringBuilder out, LocalDateTime time) {
+        if (!isPlainYear(time)) {
+            out.append(time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        appendDateHoursMinutes(out, time);
+        out.append(':');
+        appendTwoDigits(out, time.getSecond());
+        int nano = time.getNano();
+        if (nano == 0)
+            return;
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        out.append('.');
+        appendPadded(out, nano, digits);
+    }
+
+    /* Как LocalDateTime.toString(): секунды только если они не нулевые, доли - группами по 3 цифры */
+    static void appendDateTimeString(StringBuilder out, LocalDateTime time) {
+        if (!isPlainYear(time)) {
+            out.append(time);
+            return;
+        }
+        appendDateHoursMinutes(out, time);
+        final int second = time.getSecond();
+        final int nano = time.getNano();
+        if (second == 0 && nano == 0)
+            return;
+        out.append(':');
+        appendTwoDigits(out, second);
+        if (nano == 0)
+            return;
+        out.append('.');
+        if (nano % 1_000_000 == 0)
+            appendPadded(out, nano / 1_000_000, 3);
+        else if (nano % 1000 == 0)
+            appendPadded(out, nano / 1000, 6);
+        else
+            appendPadded(out, nano, 9);
+    }
+
+    /* Текстовое поле CSV. Значение берется в кавычки (кавычки внутри удваиваются), если без них
+       оно не прочитается обратно: содержит запятую, кавычку или перевод строки, начинается или
+       заканчивается пробелом или совпадает с "null". null записывается как null без кавычек */
+    static void appendText(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"')
+                out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        final int length = value.length();
+        if (length > 0 && (value.charAt(0) <= ' ' || value.charAt(length - 1) <= ' ') || value.equals("null"))
+            return true;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isPlainYear(LocalDateTime time) {
+        return time.getYear() >= 0 && time.getYear() <= 9999;
+    }
+
+    private static void appendDateHoursMinutes(StringBuilder out, LocalDateTime time) {
+        appendPadded(out, time.getYear(), 4);
+        out.append('-');
+        appendTwoDigits(out, time.getMonthValue());
+        out.append('-');
+        appendTwoDigits(out, time.getDayOfMonth());
+        out.append('T');
+        appendTwoDigits(out, time.getHour());
+        out.append(':');
+        appendTwoDigits(out, time.getMinute());
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /* value >= 0, дополняется нулями слева до width цифр */
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit)
+                out.append('0');
+        }
+        out.append(value);
+    }
+}
@@ -31,9 +31,15 @@ public class Subtask extends Task {
     }
 
     public void setEpicId(int epicId) {
+        beforeChange();
         this.epicId = epicId;
     }
 
+    @Override
+    public Subtask snapshot() {
+        return (Subtask) super.snapshot();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -59,10 +65,22 @@ public class Subtask extends Task {
     }
 
     @Override
-    public String toLine() {
-        return String.format("SUBTASK, %d, %s, %s, %s, %d, %s, %s\n", id, name, description, status.toString(), epicId,
-                startTime == null ? "null" : startTime,
-                duration == null ? "null" : duration.toMinutes());
+    public void appendLine(StringBuilder out) {
+        out.append("SUBTASK, ").append(id).append(", ");
+        LineFormat.appendText(out, name);
+        out.append(", ");
+        LineFormat.appendText(out, description);
+        out.append(", ").append(status.name()).append(", ").append(epicId).append(", ");
+        if (startTime == null)
+            out.append("null");
+        else
+            LineFormat.appendDateTimeString(out, startTime);
+        out.append(", ");
+        if (duration == null)
+            out.append("null");
+        else
+            out.append(duration.toMinutes());
+        out.append('\n');
     }
 
     public static Subtask fromLine(List<String> parts) throws LoadTaskException {
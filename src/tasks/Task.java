@@ -20,6 +20,11 @@ public class Task implements Cloneable {
 
     static DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    /* Неизменяемая копия текущей версии задачи. Создается при первом запросе после изменения
+       и отдается повторно, пока задача не изменится; любой сеттер ее сбрасывает */
+    private volatile Task snapshot;
+    private boolean frozen;
+
 
     public Task(int id, String name, String description, Status status, LocalDateTime time, Duration duration) {
         this.id = id;
@@ -43,6 +48,7 @@ public class Task implements Cloneable {
     }
 
     public void setId(int id) {
+        beforeChange();
         this.id = id;
     }
 
@@ -51,6 +57,7 @@ public class Task implements Cloneable {
     }
 
     public void setName(String name) {
+        beforeChange();
         this.name = name;
     }
 
@@ -59,6 +66,7 @@ public class Task implements Cloneable {
     }
 
     public void setDescription(String description) {
+        beforeChange();
         this.description = description;
     }
 
@@ -67,6 +75,7 @@ public class Task implements Cloneable {
     }
 
     public void setStatus(Status status) {
+        beforeChange();
         this.status = status;
     }
 
@@ -75,6 +84,7 @@ public class Task implements Cloneable {
     }
 
     public void setDuration(Duration duration) {
+        beforeChange();
         this.duration = duration;
     }
 
@@ -83,6 +93,7 @@ public class Task implements Cloneable {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        beforeChange();
         this.startTime = startTime;
     }
 
@@ -92,6 +103,34 @@ public class Task implements Cloneable {
         return startTime.plus(duration);
     }
 
+    /* Версия задачи для истории и читателей: повторный вызов без изменений задачи ничего не создает */
+    public Task snapshot() {
+        if (frozen)
+            return this;
+        Task current = snapshot;
+        if (current == null) {
+            current = clone();
+            current.freeze();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void freeze() {
+        frozen = true;
+    }
+
+    /* Вызывается перед любым изменением полей */
+    protected void beforeChange() {
+        if (frozen)
+            throw new UnsupportedOperationException("Снимок задачи " + id + " нельзя изменить");
+        snapshot = null;
+    }
+
     @Override
     public String toString() {
         return String.format("TASK: %d, %s, %s, %s, %s, %s min\n", id, name, description, status.toString(),
@@ -100,9 +139,28 @@ public class Task implements Cloneable {
     }
 
     public String toLine() {
-        return String.format("TASK, %d, %s, %s, %s, %s, %s\n", id, name, description, status.toString(),
-                startTime == null ? "null" : startTime.format(formatter),
-                duration == null ? "null" : duration.toMinutes());
+        StringBuilder line = new StringBuilder(64);
+        appendLine(line);
+        return line.toString();
+    }
+
+    /* Строка CSV, как в toLine(), дописывается прямо в out - без String.format и промежуточных строк */
+    public void appendLine(StringBuilder out) {
+        out.append("TASK, ").append(id).append(", ");
+        LineFormat.appendText(out, name);
+        out.append(", ");
+        LineFormat.appendText(out, description);
+        out.append(", ").append(status.name()).append(", ");
+        if (startTime == null)
+            out.append("null");
+        else
+            LineFormat.appendIsoDateTime(out, startTime);
+        out.append(", ");
+        if (duration == null)
+            out.append("null");
+        else
+            out.append(duration.toMinutes());
+        out.append('\n');
     }
 
     public static Task fromLine(List<String> parts) throws LoadTaskException {
@@ -154,6 +212,8 @@ public class Task implements Cloneable {
     public Task clone() {
         try {
             Task clone = (Task) super.clone();
+            clone.frozen = false; // копия снимка снова изменяемая
+            clone.snapshot = null;
             clone.setId(this.id);
             clone.setName(this.name);
             clone.setDescription(this.description);
@@ -0,0 +1,154 @@
+package timeindex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/* Свободное время после каждого интервала расписания. Декартово дерево по времени старта интервала,
+   в узле - вместимость промежутка до следующего интервала и максимум вместимости по поддереву.
+   По максимуму поиск первого подходящего промежутка отсекает поддеревья, где его нет, - O(log n).
+
+   Вместимость - сколько времени остается от первой целой минуты после окончания интервала до старта
+   следующего. Задача длительностью d помещается в промежуток, если вместимость строго больше d:
+   границы интервалов включаются. После последнего интервала вместимость неограниченна */
+class GapIndex {
+
+    static final Duration UNBOUNDED = Duration.ofSeconds(Long.MAX_VALUE);
+
+    private static final class Node {
+        private final LocalDateTime start;
+        private final int priority;
+        private Duration capacity;
+        private Duration max;
+        private Node left;
+        private Node right;
+
+        private Node(LocalDateTime start, Duration capacity, int priority) {
+            this.start = start;
+            this.capacity = capacity;
+            this.max = capacity;
+            this.priority = priority;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node root;
+
+    /* Добавляет промежуток после интервала, начинающегося в start, или меняет его вместимость */
+    void put(LocalDateTime start, Duration capacity) {
+        if (!update(root, start, capacity))
+            root = insert(root, new Node(start, capacity, random.nextInt()));
+    }
+
+    void remove(LocalDateTime start) {
+        root = remove(root, start);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    /* Время старта самого раннего интервала не раньше from, после которого вместимость промежутка
+       больше length, или null */
+    LocalDateTime findFirst(LocalDateTime from, Duration length) {
+        final Node found = findFirst(root, from, length);
+        return found != null ? found.start : null;
+    }
+
+    private static Node findFirst(Node node, LocalDateTime from, Duration length) {
+        if (node == null || node.max.compareTo(length) <= 0)
+            return null;
+        if (node.start.isBefore(from))
+            return findFirst(node.right, from, length);
+        final Node found = findFirst(node.left, from, length);
+        if (found != null)
+            return found;
+        if (node.capacity.compareTo(length) > 0)
+            return node;
+        return findFirst(node.right, from, length);
+    }
+
+    private static boolean update(Node node, LocalDateTime start, Duration capacity) {
+        if (node == null)
+            return false;
+        final int cmp = start.compareTo(node.start);
+        final boolean found;
+        if (cmp == 0) {
+            node.capacity = capacity;
+            found = true;
+        } else {
+            found = update(cmp < 0 ? node.left : node.right, start, capacity);
+        }
+        if (found)
+            recompute(node);
+        return found;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null)
+            return added;
+        if (added.start.isBefore(node.start)) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority)
+                node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority)
+                node = rotateLeft(node);
+        }
+        recompute(node);
+        return node;
+    }
+
+    private static Node remove(Node node, LocalDateTime start) {
+        if (node == null)
+            return null;
+        final int cmp = start.compareTo(node.start);
+        if (cmp < 0) {
+            node.left = remove(node.left, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start);
+        } else {
+            if (node.left == null)
+                return node.right;
+            if (node.right == null)
+                return node.left;
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = remove(node.right, start);
+            } else {
+                node = rotateLeft(node);
+                node.left = remove(node.left, start);
+            }
+        }
+        recompute(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        final Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        recompute(node);
+        recompute(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        final Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        recompute(node);
+        recompute(pivot);
+        return pivot;
+    }
+
+    private static void recompute(Node node) {
+        Duration max = node.capacity;
+        if (node.left != null && node.left.max.compareTo(max) > 0)
+            max = node.left.max;
+        if (node.right != null && node.right.max.compareTo(max) > 0)
+            max = node.right.max;
+        node.max = max;
+    }
+}
@@ -0,0 +1,306 @@
+package timeindex;
+
+import intcollections.IntObjectMap;
+import tasks.Status;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/* Расписание задач, у которых задано время старта.
+   ordered - все такие задачи по возрастанию времени старта (порядок для getPrioritizedTasks),
+   intervals - только задачи с длительностью; менеджер не допускает их пересечения, поэтому
+   для проверки конфликта достаточно посмотреть на соседей по времени старта - O(log n),
+   gaps - свободное время между интервалами для поиска места под новую задачу.
+   Задачу могут изменить на месте, поэтому индекс помнит время старта (starts) и интервал, под которыми
+   ее добавил, и упорядочивает и удаляет задачи по ним, а не по текущим значениям объекта */
+public class TimeIndex extends AbstractSet<Task> {
+
+    private record Interval(Task task, LocalDateTime start, LocalDateTime end) {
+        Interval(Task task) {
+            this(task, task.getStartTime(), task.getEndTime());
+        }
+    }
+
+    private final NavigableSet<Task> ordered;
+    private final IntObjectMap<LocalDateTime> starts;
+    private final NavigableMap<LocalDateTime, Interval> intervals;
+    private final GapIndex gaps;
+
+    public TimeIndex() {
+        starts = new IntObjectMap<>();
+        ordered = new TreeSet<>(Comparator.comparing(this::indexedStart).thenComparing(Task::getId));
+        intervals = new TreeMap<>();
+        gaps = new GapIndex();
+    }
+
+    @Override
+    public boolean add(Task task) {
+        final int id = task.getId();
+        if (task.getStartTime() == null || starts.containsKey(id))
+            return false;
+        starts.put(id, task.getStartTime());
+        ordered.add(task);
+        if (task.getEndTime() != null)
+            addInterval(new Interval(task));
+        return true;
+    }
+
+    /* Удаляет задачу с тем же id, что и o, где бы она ни стояла в расписании */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Task task) || !starts.containsKey(task.getId().intValue()))
+            return false;
+        ordered.remove(task); // сравнение идет по запомненному для id времени старта
+        removeInterval(task);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Task task && starts.containsKey(task.getId().intValue());
+    }
+
+    @Override
+    public int size() {
+        return ordered.size();
+    }
+
+    @Override
+    public void clear() {
+        starts.clear();
+        ordered.clear();
+        intervals.clear();
+        gaps.clear();
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        final Iterator<Task> iterator = ordered.iterator();
+        return new Iterator<>() {
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                removeInterval(last);
+            }
+        };
+    }
+
+    /* Задачи, которые начинаются в полуинтервале [from, to), по возрастанию времени старта.
+       Это представление расписания только для чтения: O(log n) на поиск начала, задачи отдаются
+       по мере обхода. Полуинтервал нужен, чтобы соседние страницы календаря не повторяли задачи */
+    public NavigableSet<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        return Collections.unmodifiableNavigableSet(ordered.subSet(probe(from, Integer.MIN_VALUE), true,
+                probe(to, Integer.MIN_VALUE), false));
+    }
+
+    /* Задачи, пересекающиеся с отрезком [from, to] (границы включаются, как и при проверке конфликтов),
+       по возрастанию времени старта. Из задач, начавшихся раньше from, в отрезок может попасть только
+       ближайший интервал: интервалы расписания между собой не пересекаются */
+    public Iterator<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        final Map.Entry<LocalDateTime, Interval> before = intervals.lowerEntry(from);
+        final Task first = before != null && !before.getValue().end().isBefore(from)
+                ? before.getValue().task() : null;
+        final Iterator<Task> rest = Collections.unmodifiableNavigableSet(ordered.subSet(
+                probe(from, Integer.MIN_VALUE), true, probe(to, Integer.MAX_VALUE), true)).iterator();
+        return new Iterator<>() {
+            private boolean firstTaken = first == null;
+
+            @Override
+            public boolean hasNext() {
+                return !firstTaken || rest.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!firstTaken) {
+                    firstTaken = true;
+                    return first;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    /* Самое раннее время старта не раньше notBefore, с которого задача длительностью length
+       не пересечется ни с одной задачей расписания. Время старта выбирается с точностью до минуты */
+    public LocalDateTime findFreeSlot(Duration length, LocalDateTime notBefore) {
+        if (length.isNegative())
+            throw new IllegalArgumentException("Отрицательная длительность " + length);
+        final LocalDateTime earliest = notBefore.truncatedTo(ChronoUnit.MINUTES).equals(notBefore)
+                ? notBefore : firstMinuteAfter(notBefore);
+
+        final Map.Entry<LocalDateTime, Interval> before = intervals.floorEntry(earliest);
+        final LocalDateTime searchFrom;
+        if (before != null && !before.getValue().end().isBefore(earliest)) {
+            searchFrom = before.getKey(); // earliest занято, подходит только время после этого интервала
+        } else {
+            final LocalDateTime next = intervals.higherKey(earliest);
+            if (next == null || earliest.plus(length).isBefore(next))
+                return earliest;
+            searchFrom = next;
+        }
+        final LocalDateTime start = gaps.findFirst(searchFrom, length);
+        if (start == null)
+            throw new IllegalArgumentException("Слишком большая длительность " + length);
+        return firstMinuteAfter(intervals.get(start).end());
+    }
+
+    /* Возвращает задачу, пересекающуюся по времени с task (границы интервалов включаются),
+       или null. Запись с тем же id не считается конфликтом - это предыдущая версия задачи */
+    public Task findOverlap(Task task) {
+        final LocalDateTime start = task.getStartTime();
+        final LocalDateTime end = task.getEndTime();
+        if (start == null || end == null)
+            return null;
+
+        Map.Entry<LocalDateTime, Interval> before = intervals.floorEntry(start);
+        if (before != null && sameId(before.getValue().task(), task))
+            before = intervals.lowerEntry(before.getKey());
+        if (before != null && !before.getValue().end().isBefore(start))
+            return before.getValue().task();
+
+        Map.Entry<LocalDateTime, Interval> after = intervals.higherEntry(start);
+        if (after != null && sameId(after.getValue().task(), task))
+            after = intervals.higherEntry(after.getKey());
+        if (after != null && !after.getKey().isAfter(end))
+            return after.getValue().task();
+
+        return null;
+    }
+
+    /* Проверка пачки задач за один проход. Задачи пачки с длительностью сортируются по времени старта
+       и сливаются с интервалами расписания из того же окна времени; пересечение есть, если очередной
+       интервал начинается не позже самого позднего окончания среди предыдущих. Записи расписания,
+       для id которых replaced возвращает true, пропускаются - это старые версии задач пачки.
+       Возвращает пару (задача пачки, задача, с которой она пересекается) или null */
+    public Map.Entry<Task, Task> findOverlap(Collection<? extends Task> batch, IntPredicate replaced) {
+        final List<Interval> sorted = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (task.getStartTime() != null && task.getEndTime() != null)
+                sorted.add(new Interval(task));
+        }
+        if (sorted.isEmpty())
+            return null;
+        sorted.sort(Comparator.comparing(Interval::start));
+
+        final LocalDateTime first = sorted.getFirst().start();
+        final LocalDateTime from = intervals.floorKey(first) != null ? intervals.floorKey(first) : first;
+        final LocalDateTime to = sorted.stream().map(Interval::end).max(Comparator.naturalOrder()).orElseThrow();
+        final Iterator<Interval> existing = intervals.subMap(from, true, to, true).values().iterator();
+
+        Interval latest = null; // интервал с самым поздним окончанием среди уже просмотренных
+        Interval scheduled = nextScheduled(existing, replaced);
+        int index = 0;
+        while (index < sorted.size() || scheduled != null) {
+            final boolean fromBatch = scheduled == null || index < sorted.size()
+                    && !sorted.get(index).start().isAfter(scheduled.start());
+            final Interval current = fromBatch ? sorted.get(index++) : scheduled;
+            if (!fromBatch)
+                scheduled = nextScheduled(existing, replaced);
+
+            if (latest != null && !current.start().isAfter(latest.end())) {
+                // интервалы расписания между собой не пересекаются, значит одна из двух задач - из пачки
+                return fromBatch ? new AbstractMap.SimpleImmutableEntry<>(current.task(), latest.task())
+                        : new AbstractMap.SimpleImmutableEntry<>(latest.task(), current.task());
+            }
+            if (latest == null || current.end().isAfter(latest.end()))
+                latest = current;
+        }
+        return null;
+    }
+
+    private static Interval nextScheduled(Iterator<Interval> iterator, IntPredicate replaced) {
+        while (iterator.hasNext()) {
+            final Interval interval = iterator.next();
+            if (!replaced.test(interval.task().getId()))
+                return interval;
+        }
+        return null;
+    }
+
+    /* Время старта, под которым задача лежит в ordered; для границ поиска - их собственное */
+    private LocalDateTime indexedStart(Task task) {
+        final LocalDateTime start = starts.get(task.getId().intValue());
+        return start != null ? start : task.getStartTime();
+    }
+
+    /* Граница для поиска в ordered: задача с данным временем старта и крайним id */
+    private static Task probe(LocalDateTime startTime, int id) {
+        return new Task(id, null, null, Status.NEW, startTime, null);
+    }
+
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from))
+            throw new IllegalArgumentException("Начало интервала " + from + " позже его конца " + to);
+    }
+
+    private void addInterval(Interval interval) {
+        final LocalDateTime start = interval.start();
+        intervals.put(start, interval);
+        gaps.put(start, capacityAfter(interval, intervals.higherKey(start)));
+        final Map.Entry<LocalDateTime, Interval> before = intervals.lowerEntry(start);
+        if (before != null)
+            gaps.put(before.getKey(), capacityAfter(before.getValue(), start));
+    }
+
+    /* Убирает задачу из starts и интервалов; из ordered ее уже убрал вызывающий */
+    private void removeInterval(Task task) {
+        final LocalDateTime start = starts.remove(task.getId().intValue());
+        final Interval stored = intervals.get(start);
+        if (stored == null || !sameId(stored.task(), task))
+            return;
+        intervals.remove(start);
+        gaps.remove(start);
+        final Map.Entry<LocalDateTime, Interval> before = intervals.lowerEntry(start);
+        if (before != null)
+            gaps.put(before.getKey(), capacityAfter(before.getValue(), intervals.higherKey(start)));
+    }
+
+    /* Вместимость промежутка между интервалом и стартом следующего (null - следующего нет) */
+    private static Duration capacityAfter(Interval interval, LocalDateTime next) {
+        if (next == null)
+            return GapIndex.UNBOUNDED;
+        return Duration.between(firstMinuteAfter(interval.end()), next);
+    }
+
+    /* Первая целая минута строго после time: интервалы закрытые, и старт в момент окончания
+       другой задачи был бы пересечением */
+    private static LocalDateTime firstMinuteAfter(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+    }
+
+    private static boolean sameId(Task a, Task b) {
+        return a.getId().intValue() == b.getId().intValue();
+    }
+}
@@ -88,4 +88,18 @@ class DoubleLinkedListTest {
         assertTrue(list.containsKey(1));
         assertFalse(list.containsKey(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getElementsAfter() {
+        list.add(1, "First");
+        list.add(2, "Second");
+        list.add(3, "Third");
+
+        assertArrayEquals(new String[] { "First", "Second" }, list.getFirstElements(2).toArray());
+        assertArrayEquals(new String[] { "Second", "Third" }, list.getElementsAfter(1, 5).toArray());
+
+        list.remove(1);
+        assertTrue(list.getElementsAfter(1, 5).isEmpty()); // после удаленного ключа не начинаем сначала
+        assertTrue(list.getElementsAfter(Integer.valueOf(1), 5).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package intcollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+
+    @Test
+    void putGetRemove() {
+        IntIntMap map = new IntIntMap();
+        map.put(10, 1);
+        map.put(20, 2);
+        map.put(10, 3);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.getOrDefault(10, -1));
+        assertEquals(-1, map.getOrDefault(30, -1));
+        assertEquals(2, map.remove(20, -1));
+        assertEquals(-1, map.remove(20, -1));
+        assertFalse(map.containsKey(20));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        final IntIntMap map = new IntIntMap();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        final Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(3000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    expected.put(key, i);
+                    map.put(key, i);
+                }
+                case 1 -> assertEquals(expected.containsKey(key) ? expected.remove(key) : -1, map.remove(key, -1));
+                default -> assertEquals(expected.getOrDefault(key, -1), map.getOrDefault(key, -1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        final Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
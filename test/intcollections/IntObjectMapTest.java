@@ -0,0 +1,98 @@
+package intcollections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+
+    private IntObjectMap<String> map;
+
+    @BeforeEach
+    void init() {
+        map = new IntObjectMap<>();
+    }
+
+    @Test
+    void putGetRemove() {
+        assertNull(map.put(1, "Первый"));
+        assertNull(map.put(-5, "Отрицательный"));
+        assertEquals("Первый", map.put(1, "Замена"));
+
+        assertEquals(2, map.size());
+        assertEquals("Замена", map.get(1));
+        assertEquals("Отрицательный", map.get(-5));
+        assertNull(map.get(2));
+        assertTrue(map.containsKey(-5));
+        assertFalse(map.containsKey("-5"));
+
+        assertEquals("Замена", map.remove(1));
+        assertNull(map.remove(1));
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        final Map<Integer, String> expected = new HashMap<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    void iteratorRemoveKeepsOtherEntriesReachable() {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() % 2 == 0)
+                iterator.remove();
+        }
+
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : "v" + i, map.get(i));
+        }
+    }
+
+    @Test
+    void forEachKeyVisitsEveryKey() {
+        map.put(3, "a");
+        map.put(30, "b");
+        map.put(300, "c");
+        map.remove(30);
+
+        final int[] sum = {0};
+        map.forEachKey(key -> sum[0] += key);
+        assertEquals(303, sum[0]);
+    }
+
+    @Test
+    void clear() {
+        map.put(1, "a");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        map.put(1, "b");
+        assertEquals("b", map.get(1));
+    }
+}
@@ -0,0 +1,85 @@
+package intcollections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+
+    private IntSet set;
+
+    @BeforeEach
+    void init() {
+        set = new IntSet();
+    }
+
+    @Test
+    void addContainsRemove() {
+        assertTrue(set.add(7));
+        assertFalse(set.add(7));
+        assertTrue(set.add(0));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(Integer.valueOf(0)));
+        assertFalse(set.contains(8));
+
+        assertTrue(set.remove(7));
+        assertFalse(set.remove(7));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void behavesLikeHashSetUnderRandomOperations() {
+        final Set<Integer> expected = new HashSet<>();
+        final Random random = new Random(2);
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(1000) - 500;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), set.add(key));
+                case 1 -> assertEquals(expected.remove(key), set.remove(key));
+                default -> assertEquals(expected.contains(key), set.contains(key));
+            }
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        set.add(1);
+        set.add(2);
+        IntSet copy = new IntSet(set);
+        copy.add(3);
+        set.remove(1);
+
+        assertEquals(Set.of(2), set);
+        assertEquals(Set.of(1, 2, 3), copy);
+    }
+
+    @Test
+    void primitiveIteration() {
+        for (int i = 0; i < 20; i++) {
+            set.add(i);
+        }
+        final int[] sum = {0};
+        set.forEachInt(value -> sum[0] += value);
+        assertEquals(190, sum[0]);
+
+        PrimitiveIterator.OfInt iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.nextInt() >= 10)
+                iterator.remove();
+        }
+        assertEquals(10, set.size());
+        assertFalse(set.contains(15));
+        assertTrue(set.contains(5));
+    }
+}
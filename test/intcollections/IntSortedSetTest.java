@@ -0,0 +1,58 @@
+package intcollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSortedSetTest {
+
+    @Test
+    void pagesInAscendingOrder() {
+        IntSortedSet set = new IntSortedSet();
+        for (int value : new int[]{5, 1, 9, 3, 7, 3}) {
+            set.add(value);
+        }
+        set.remove(7);
+
+        assertEquals(4, set.size());
+        assertArrayEquals(new int[]{1, 3}, set.after(0, 2));
+        assertArrayEquals(new int[]{5, 9}, set.after(3, 10));
+        assertArrayEquals(new int[]{9}, set.after(6, 10));
+        assertArrayEquals(new int[0], set.after(9, 10));
+        assertFalse(set.contains(7));
+        assertFalse(set.remove(7));
+    }
+
+    @Test
+    void behavesLikeTreeSetUnderRandomOperations() {
+        final IntSortedSet set = new IntSortedSet();
+        final TreeSet<Integer> expected = new TreeSet<>();
+        final Random random = new Random(5);
+        int next = 0;
+        for (int i = 0; i < 50_000; i++) {
+            final int value = random.nextInt(4) == 0 ? random.nextInt(next + 1) : ++next;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    expected.add(value);
+                    set.add(value);
+                }
+                case 2 -> assertEquals(expected.remove(value), set.remove(value));
+                default -> {
+                    final int limit = random.nextInt(20);
+                    final List<Integer> page = expected.tailSet(value, false).stream().limit(limit).toList();
+                    assertArrayEquals(page.stream().mapToInt(Integer::intValue).toArray(), set.after(value, limit));
+                }
+            }
+            if (i % 1000 == 0) {
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+                set.clear();
+                expected.clear();
+            }
+            assertEquals(expected.size(), set.size());
+        }
+    }
+}
@@ -8,11 +8,18 @@ import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -246,6 +253,32 @@ public abstract class AbstractTaskManagerTest<T extends TaskManager> {
         assertNull(taskManager.getEpic(epic.getId()));
     }
 
+    @Test
+    void removeEpicKeepsSubtasksOfOtherEpics() {
+        Epic other = manager.addEpic(new Epic("Эпик2", "Описание эпика"));
+        var ref = new Object() {
+            Subtask timed;
+            Subtask otherSubtask;
+        };
+        Assertions.assertDoesNotThrow(() -> {
+            ref.timed = manager.addSubtask(new Subtask("Подзадача2", "", Status.NEW, epic.getId(),
+                    LocalDateTime.of(2025, 4, 1, 10, 0), Duration.ofMinutes(30)));
+            ref.otherSubtask = manager.addSubtask(new Subtask("Подзадача3", "", Status.DONE, other.getId(),
+                    LocalDateTime.of(2025, 4, 1, 12, 0), Duration.ofMinutes(30)));
+        });
+
+        assertEquals(2, manager.getSubtasksByEpicId(epic.getId()).size());
+        assertEquals(List.of(ref.otherSubtask), manager.getSubtasksByEpicId(other.getId()));
+
+        manager.removeEpic(epic.getId());
+        TaskManager taskManager = getTaskManagerForChecks();
+
+        assertNull(taskManager.getSubtask(ref.timed.getId()));
+        assertEquals(List.of(ref.otherSubtask), taskManager.getSubtasksByEpicId(other.getId()));
+        assertEquals(List.of(ref.otherSubtask), taskManager.getSubtasks());
+        assertEquals(List.of(ref.otherSubtask), taskManager.getPrioritizedTasks());
+    }
+
     @Test
     void removeSubtask() {
         int count = manager.getEpics().size();
@@ -284,7 +317,7 @@ public abstract class AbstractTaskManagerTest<T extends TaskManager> {
         final String newDescription = "description";
 
         final Status oldStatus = epic.getStatus();
-        final HashSet<Integer> oldSubtasks = manager.getEpic(epic.getId()).getSubtasks();
+        final Set<Integer> oldSubtasks = manager.getEpic(epic.getId()).getSubtasks();
 
         Epic updated = epic.clone();
         updated.setName(newName);
@@ -330,6 +363,73 @@ public abstract class AbstractTaskManagerTest<T extends TaskManager> {
         assertEquals(oldEpicId, found.getEpicId());    // id эпика должен остаться прежним
     }
 
+    @Test
+    void subtaskRescheduledInPlaceFreesOldTime() throws TaskTimeConflictException {
+        final LocalDateTime morning = LocalDateTime.of(2031, 3, 1, 10, 0);
+        Subtask timed = subtask.clone();
+        timed.setStartTime(morning);
+        timed.setDuration(Duration.ofMinutes(60));
+        manager.updateSubtask(timed);
+
+        Subtask stored = manager.getSubtask(subtask.getId());
+        stored.setStartTime(morning.plusHours(2));
+        manager.updateSubtask(stored);
+
+        Task freed = manager.addTask(new Task("В освободившееся время", "", Status.NEW, morning,
+                Duration.ofMinutes(30)));
+        assertThrows(TaskTimeConflictException.class, () -> manager.addTask(new Task("Поверх", "", Status.NEW,
+                morning.plusHours(2).plusMinutes(30), Duration.ofMinutes(10))));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(List.of(freed.getId(), subtask.getId()),
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(morning.plusHours(2), taskManager.getEpic(epic.getId()).getStartTime());
+    }
+
+    @Test
+    void updateSubtaskMovesItToExistingEpic() throws TaskTimeConflictException {
+        Epic other = manager.addEpic(new Epic("Эпик2", "Описание"));
+        Subtask moved = subtask.clone();
+        moved.setEpicId(other.getId());
+        manager.updateSubtask(moved);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(other.getId(), taskManager.getSubtask(subtask.getId()).getEpicId());
+        assertTrue(taskManager.getEpic(epic.getId()).getSubtasks().isEmpty());
+        assertEquals(Status.NEW, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(other.getId()).getSubtasks().stream().toList());
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(other.getId()).getStatus());
+
+        Subtask stored = manager.getSubtask(subtask.getId());
+        stored.setEpicId(epic.getId()); // обратно, изменив хранимый объект на месте
+        manager.updateSubtask(stored);
+        taskManager = getTaskManagerForChecks();
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(epic.getId()).getSubtasks().stream().toList());
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(Status.NEW, taskManager.getEpic(other.getId()).getStatus());
+
+        manager.removeEpic(other.getId());
+        assertNotNull(getTaskManagerForChecks().getSubtask(subtask.getId()));
+        manager.removeEpic(epic.getId());
+        assertNull(getTaskManagerForChecks().getSubtask(subtask.getId()));
+    }
+
+    @Test
+    void subtaskChangedInPlaceUpdatesEpic() throws TaskTimeConflictException {
+        Subtask stored = manager.getSubtask(subtask.getId());
+        stored.setStatus(Status.DONE);
+        manager.updateSubtask(stored);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(Status.DONE, taskManager.getEpic(epic.getId()).getStatus());
+
+        Subtask reopened = taskManager.getSubtask(subtask.getId()).clone();
+        reopened.setStatus(Status.NEW);
+        manager.updateSubtask(reopened);
+
+        assertEquals(Status.NEW, getTaskManagerForChecks().getEpic(epic.getId()).getStatus());
+    }
+
     @Test
     void checkHistoryShouldStoreOldVersionOfTask() {
         final int id = task.getId();
@@ -692,4 +792,456 @@ public abstract class AbstractTaskManagerTest<T extends TaskManager> {
         assertEquals(3, manager.getTasks().size());
     }
 
+    @Test
+    void checkUpdateTimedTaskDoesNotConflictWithItself() {
+        var ref = new Object() {
+            Task added;
+        };
+        Assertions.assertDoesNotThrow(() -> ref.added = manager.addTask(new Task("T1", "D1", Status.NEW,
+                LocalDateTime.of(2025, 3, 1, 12, 0), Duration.ofMinutes(30))));
+
+        Task updated = ref.added.clone();
+        updated.setStartTime(LocalDateTime.of(2025, 3, 1, 12, 15));
+        updated.setStatus(Status.IN_PROGRESS);
+        Assertions.assertDoesNotThrow(() -> manager.updateTask(updated));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        assertEquals(1, prioritizedTasks.size());
+        assertEquals(updated.getStartTime(), prioritizedTasks.get(0).getStartTime());
+    }
+
+    @Test
+    void addTasksInBatch() {
+        final int count = manager.getTasks().size();
+        List<Task> added = manager.addTasks(List.of(
+                new Task("B1", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 10, 0), Duration.ofMinutes(30)),
+                new Task("B2", "D", Status.DONE, LocalDateTime.of(2025, 4, 1, 9, 0), Duration.ofMinutes(30)),
+                new Task("B3", "D", Status.NEW, null, null)));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(3, added.size());
+        assertEquals(count + 3, taskManager.getTasks().size());
+        assertEquals(List.of("B2", "B1"), taskManager.getPrioritizedTasks().stream().map(Task::getName).toList());
+        for (Task item : added) {
+            assertEquals(item, taskManager.getTask(item.getId()));
+        }
+    }
+
+    @Test
+    void addTasksRejectsWholeBatchOnConflict() {
+        final int count = manager.getTasks().size();
+        assertThrows(TaskTimeConflictException.class, () -> manager.addTasks(List.of(
+                new Task("B1", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 10, 0), Duration.ofMinutes(30)),
+                new Task("B2", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 10, 30), Duration.ofMinutes(30)))));
+
+        manager.addTask(new Task("T", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 12, 0), Duration.ofMinutes(60)));
+        assertThrows(TaskTimeConflictException.class, () -> manager.addTasks(List.of(
+                new Task("B3", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 8, 0), Duration.ofMinutes(30)),
+                new Task("B4", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 12, 30), Duration.ofMinutes(5)))));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(count + 1, taskManager.getTasks().size());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void addSubtasksInBatchRecomputesEpic() {
+        List<Subtask> added = manager.addSubtasks(List.of(
+                new Subtask("S1", "D", Status.DONE, epic.getId(), LocalDateTime.of(2025, 5, 1, 10, 0),
+                        Duration.ofMinutes(30)),
+                new Subtask("S2", "D", Status.DONE, epic.getId(), LocalDateTime.of(2025, 5, 1, 12, 0),
+                        Duration.ofMinutes(60)),
+                new Subtask("S3", "D", Status.NEW, 1000)));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        Epic found = taskManager.getEpic(epic.getId());
+        assertEquals(2, added.size());
+        assertEquals(3, found.getSubtasks().size());
+        assertEquals(Status.IN_PROGRESS, found.getStatus());
+        assertEquals(LocalDateTime.of(2025, 5, 1, 10, 0), found.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 5, 1, 13, 0), found.getEndTime());
+    }
+
+    @Test
+    void updateTasksMovesTasksPastEachOther() {
+        List<Task> added = manager.addTasks(List.of(
+                new Task("B1", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 10, 0), Duration.ofMinutes(30)),
+                new Task("B2", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 11, 0), Duration.ofMinutes(30))));
+
+        /* По отдельности каждое обновление конфликтовало бы со старой версией другой задачи */
+        Task first = added.get(0).clone();
+        first.setStartTime(LocalDateTime.of(2025, 4, 1, 11, 0));
+        Task second = added.get(1).clone();
+        second.setStartTime(LocalDateTime.of(2025, 4, 1, 10, 0));
+        Subtask changed = subtask.clone();
+        changed.setStatus(Status.DONE);
+        manager.updateTasks(List.of(first, second, changed));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(List.of("B2", "B1"), taskManager.getPrioritizedTasks().stream().map(Task::getName).toList());
+        assertEquals(Status.DONE, taskManager.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void updateTasksRejectsConflictInsideBatch() {
+        List<Task> added = manager.addTasks(List.of(
+                new Task("B1", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 10, 0), Duration.ofMinutes(30)),
+                new Task("B2", "D", Status.NEW, LocalDateTime.of(2025, 4, 1, 11, 0), Duration.ofMinutes(30))));
+        Task first = added.get(0).clone();
+        first.setStartTime(LocalDateTime.of(2025, 4, 1, 11, 15));
+
+        assertThrows(TaskTimeConflictException.class, () -> manager.updateTasks(List.of(first, added.get(1))));
+        assertEquals(LocalDateTime.of(2025, 4, 1, 10, 0),
+                getTaskManagerForChecks().getTask(first.getId()).getStartTime());
+    }
+
+    @Test
+    void removeTasksOfAllKinds() {
+        Epic other = manager.addEpic(new Epic("Эпик2", "Описание"));
+        Subtask doneSubtask = manager.addSubtask(new Subtask("Подзадача2", "Описание", Status.DONE, epic.getId()));
+        Subtask otherSubtask = manager.addSubtask(new Subtask("Подзадача3", "Описание", Status.NEW, other.getId()));
+
+        List<Task> removed = manager.removeTasks(task.getId(), subtask.getId(), other.getId(), 1000, task.getId());
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(3, removed.size());
+        assertNull(taskManager.getTask(task.getId()));
+        assertNull(taskManager.getSubtask(subtask.getId()));
+        assertNull(taskManager.getEpic(other.getId()));
+        assertNull(taskManager.getSubtask(otherSubtask.getId()));
+        assertEquals(Status.DONE, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(doneSubtask.getId()), taskManager.getSubtasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void transactionFreesTimeAndReusesIt() {
+        Task early = manager.addTask(
+                new Task("T1", "D", Status.NEW, LocalDateTime.of(2025, 6, 1, 10, 0), Duration.ofMinutes(60)));
+        Task late = manager.addTask(
+                new Task("T2", "D", Status.NEW, LocalDateTime.of(2025, 6, 1, 12, 0), Duration.ofMinutes(60)));
+
+        /* Промежуточные состояния пересекаются по времени, итоговое - нет */
+        var ref = new Object() {
+            Task added;
+        };
+        manager.inTransaction(tx -> {
+            ref.added = tx.addTask(
+                    new Task("T3", "D", Status.NEW, LocalDateTime.of(2025, 6, 1, 10, 30), Duration.ofMinutes(60)));
+            Task moved = early.clone();
+            moved.setStartTime(LocalDateTime.of(2025, 6, 1, 12, 0));
+            tx.updateTask(moved);
+            tx.removeTask(late.getId());
+        });
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertNull(taskManager.getTask(late.getId()));
+        assertEquals(ref.added, taskManager.getTask(ref.added.getId()));
+        assertEquals(List.of("T3", "T1"), taskManager.getPrioritizedTasks().stream().map(Task::getName).toList());
+    }
+
+    @Test
+    void transactionConflictLeavesManagerUnchanged() {
+        Task timed = manager.addTask(
+                new Task("T1", "D", Status.NEW, LocalDateTime.of(2025, 6, 1, 10, 0), Duration.ofMinutes(60)));
+        final int tasks = manager.getTasks().size();
+        final int subtasks = manager.getSubtasks().size();
+
+        assertThrows(TaskTimeConflictException.class, () -> manager.inTransaction(tx -> {
+            tx.removeTask(task.getId());
+            tx.addSubtask(new Subtask("S", "D", Status.DONE, epic.getId()));
+            tx.addTask(new Task("T2", "D", Status.NEW, LocalDateTime.of(2025, 6, 1, 10, 30), Duration.ofMinutes(5)));
+        }));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(tasks, taskManager.getTasks().size());
+        assertEquals(subtasks, taskManager.getSubtasks().size());
+        assertNotNull(taskManager.getTask(task.getId()));
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(timed), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void transactionAddsEpicWithSubtasks() {
+        var ref = new Object() {
+            Epic added;
+        };
+        manager.inTransaction(tx -> {
+            ref.added = tx.addEpic(new Epic("Эпик2", "Описание"));
+            tx.addSubtask(new Subtask("S1", "D", Status.DONE, ref.added.getId(),
+                    LocalDateTime.of(2025, 6, 2, 9, 0), Duration.ofMinutes(30)));
+            tx.addSubtask(new Subtask("S2", "D", Status.DONE, ref.added.getId()));
+            tx.addSubtask(new Subtask("S3", "D", Status.DONE, 1000));
+        });
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        Epic found = taskManager.getEpic(ref.added.getId());
+        assertEquals(2, found.getSubtasks().size());
+        assertEquals(Status.DONE, found.getStatus());
+        assertEquals(LocalDateTime.of(2025, 6, 2, 9, 0), found.getStartTime());
+    }
+
+    @Test
+    void transactionMovesSubtaskToAnotherEpic() {
+        Epic other = manager.addEpic(new Epic("Эпик2", "Описание"));
+
+        manager.inTransaction(tx -> {
+            tx.removeSubtask(subtask.getId());
+            Subtask moved = new Subtask(subtask.getName(), subtask.getDescription(), Status.DONE, other.getId());
+            tx.addSubtask(moved);
+            tx.updateSubtask(subtask);
+        });
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertNull(taskManager.getSubtask(subtask.getId()));
+        assertEquals(Status.NEW, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(Status.DONE, taskManager.getEpic(other.getId()).getStatus());
+        assertEquals(1, taskManager.getEpic(other.getId()).getSubtasks().size());
+    }
+
+    @Test
+    void transactionChangesEpicOfSubtask() {
+        Epic other = manager.addEpic(new Epic("Эпик2", "Описание"));
+        var ref = new Object() {
+            Epic added;
+        };
+
+        manager.inTransaction(tx -> {
+            Subtask moved = subtask.clone();
+            moved.setEpicId(other.getId());
+            tx.updateSubtask(moved);
+            tx.removeEpic(epic.getId()); // подзадача уже не в этом эпике и остается
+        });
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertNull(taskManager.getEpic(epic.getId()));
+        assertEquals(other.getId(), taskManager.getSubtask(subtask.getId()).getEpicId());
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(other.getId()).getStatus());
+
+        manager.inTransaction(tx -> {
+            ref.added = tx.addEpic(new Epic("Эпик3", "Описание"));
+            Subtask moved = subtask.clone();
+            moved.setEpicId(ref.added.getId());
+            tx.updateSubtask(moved);
+        });
+
+        taskManager = getTaskManagerForChecks();
+        assertTrue(taskManager.getEpic(other.getId()).getSubtasks().isEmpty());
+        assertEquals(Status.NEW, taskManager.getEpic(other.getId()).getStatus());
+        assertTrue(taskManager.getEpic(ref.added.getId()).getSubtasks().contains(subtask.getId()));
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(ref.added.getId()).getStatus());
+    }
+
+    @Test
+    void transactionCannotBeUsedAfterCommit() {
+        var ref = new Object() {
+            Transaction tx;
+        };
+        manager.inTransaction(tx -> ref.tx = tx);
+        assertThrows(IllegalStateException.class, () -> ref.tx.addTask(new Task("T", "D", Status.NEW)));
+    }
+
+    @Test
+    void changesReportMutationsAndEpicRecalculation() throws InterruptedException {
+        final BlockingQueue<TaskChange> received = new LinkedBlockingQueue<>();
+        manager.changes().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskChange item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        Subtask added = manager.addSubtask(new Subtask("S", "D", Status.DONE, epic.getId(),
+                LocalDateTime.of(2025, 7, 1, 10, 0), Duration.ofMinutes(30)));
+        manager.removeSubtask(subtask.getId());
+        Task renamed = task.clone();
+        renamed.setName("Новое имя");
+        manager.updateTask(renamed);
+        manager.removeEpic(epic.getId());
+
+        final List<TaskChange.Kind> expected = List.of(TaskChange.Kind.ADDED, TaskChange.Kind.EPIC_TIME,
+                TaskChange.Kind.REMOVED, TaskChange.Kind.EPIC_STATUS, TaskChange.Kind.UPDATED,
+                TaskChange.Kind.REMOVED, TaskChange.Kind.REMOVED);
+        final List<Integer> ids = List.of(added.getId(), epic.getId(), subtask.getId(), epic.getId(),
+                task.getId(), added.getId(), epic.getId());
+        long sequence = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            TaskChange change = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(change);
+            assertEquals(expected.get(i), change.kind());
+            assertEquals(ids.get(i), change.id());
+            assertTrue(change.task().isFrozen());
+            if (change.kind() == TaskChange.Kind.EPIC_STATUS)
+                assertEquals(Status.DONE, change.task().getStatus());
+            if (i > 0)
+                assertEquals(sequence + 1, change.sequence());
+            sequence = change.sequence();
+        }
+    }
+
+    @Test
+    void tasksBetweenAndOverlapping() {
+        List<Task> added = manager.addTasks(List.of(
+                new Task("T1", "D", Status.NEW, LocalDateTime.of(2025, 8, 3, 23, 0), Duration.ofMinutes(120)),
+                new Task("T2", "D", Status.NEW, LocalDateTime.of(2025, 8, 6, 10, 0), Duration.ofMinutes(30)),
+                new Task("T3", "D", Status.NEW, LocalDateTime.of(2025, 8, 11, 0, 0), Duration.ofMinutes(30))));
+        Subtask timed = manager.addSubtask(new Subtask("S", "D", Status.NEW, epic.getId(),
+                LocalDateTime.of(2025, 8, 8, 9, 0), Duration.ofMinutes(60)));
+        final LocalDateTime monday = LocalDateTime.of(2025, 8, 4, 0, 0);
+        final LocalDateTime nextMonday = monday.plusWeeks(1);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(List.of("T2", "S"), taskManager.getTasksBetween(monday, nextMonday).stream()
+                .map(Task::getName).toList());
+        assertEquals(List.of("T1", "T2", "S", "T3"), taskManager.getTasksOverlapping(monday, nextMonday).stream()
+                .map(Task::getName).toList());
+
+        List<Integer> iterated = new ArrayList<>();
+        taskManager.iterateTasksBetween(monday, nextMonday).forEachRemaining(item -> iterated.add(item.getId()));
+        assertEquals(List.of(added.get(1).getId(), timed.getId()), iterated);
+    }
+
+    @Test
+    void addTaskAutoScheduledTakesFirstFreeSlot() {
+        manager.addTask(new Task("T1", "D", Status.NEW, LocalDateTime.of(2025, 10, 1, 9, 0), Duration.ofMinutes(60)));
+        manager.addTask(new Task("T2", "D", Status.NEW, LocalDateTime.of(2025, 10, 1, 10, 30), Duration.ofMinutes(60)));
+        final LocalDateTime notBefore = LocalDateTime.of(2025, 10, 1, 9, 0);
+
+        assertEquals(LocalDateTime.of(2025, 10, 1, 10, 1), manager.findFreeSlot(Duration.ofMinutes(20), notBefore));
+        Task first = manager.addTaskAutoScheduled(new Task("A1", "D", Status.NEW, null, Duration.ofMinutes(20)),
+                notBefore);
+        Subtask second = (Subtask) manager.addTaskAutoScheduled(new Subtask("A2", "D", Status.NEW, epic.getId(),
+                null, Duration.ofMinutes(20)), notBefore);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(LocalDateTime.of(2025, 10, 1, 10, 1), taskManager.getTask(first.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2025, 10, 1, 11, 31), taskManager.getSubtask(second.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2025, 10, 1, 11, 31), taskManager.getEpic(epic.getId()).getStartTime());
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.addTaskAutoScheduled(new Task("A3", "D", Status.NEW), notBefore));
+    }
+
+    @Test
+    void statusIndexFollowsChanges() {
+        Subtask done = manager.addSubtask(new Subtask("S2", "D", Status.DONE, epic.getId()));
+        Task updated = task.clone();
+        updated.setStatus(Status.IN_PROGRESS);
+        manager.updateTask(updated);
+        Subtask finished = subtask.clone();
+        finished.setStatus(Status.DONE);
+        manager.updateSubtask(finished);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(0, taskManager.countByStatus(TaskType.TASK, Status.NEW));
+        assertEquals(1, taskManager.countByStatus(TaskType.TASK, Status.IN_PROGRESS));
+        assertEquals(2, taskManager.countByStatus(TaskType.SUBTASK, Status.DONE));
+        assertEquals(1, taskManager.countByStatus(TaskType.EPIC, Status.DONE));
+        assertEquals(Set.of(subtask.getId(), done.getId()), taskManager.getByStatus(TaskType.SUBTASK, Status.DONE)
+                .stream().map(Task::getId).collect(Collectors.toSet()));
+        assertEquals(List.of(epic.getId()), taskManager.getByStatus(TaskType.EPIC, Status.DONE)
+                .stream().map(Task::getId).toList());
+        assertTrue(taskManager.getHistory().isEmpty());
+
+        manager.removeSubtask(done.getId());
+        manager.removeEpic(epic.getId());
+        manager.removeAllTasks();
+        taskManager = getTaskManagerForChecks();
+        for (TaskType type : TaskType.values()) {
+            for (Status status : Status.values()) {
+                assertEquals(0, taskManager.countByStatus(type, status));
+                assertTrue(taskManager.getByStatus(type, status).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void searchFindsAllKindsAndFollowsChanges() {
+        Task report = manager.addTask(new Task("Квартальный отчет", "для бухгалтерии", Status.NEW));
+        Subtask draft = manager.addSubtask(new Subtask("Черновик", "отчет по продажам", Status.NEW, epic.getId()));
+        Epic renamed = new Epic(epic.getId(), "Отчетность", "");
+        manager.updateEpic(renamed);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertEquals(List.of(report.getId(), epic.getId(), draft.getId()),
+                taskManager.search("отчет", 10).stream().map(Task::getId).toList());
+        assertEquals(List.of(report.getId()), taskManager.search("ОТЧ бух", 10).stream().map(Task::getId).toList());
+        assertTrue(taskManager.getHistory().isEmpty());
+
+        manager.removeEpic(epic.getId());
+        manager.removeTask(report.getId());
+        assertTrue(getTaskManagerForChecks().search("отчет", 10).isEmpty());
+    }
+
+    @Test
+    void pagesFollowIdOrder() {
+        final List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(new Task("T" + i, "", Status.NEW));
+        }
+        manager.addTasks(batch);
+        manager.removeTask(batch.get(3).getId());
+        manager.addSubtask(new Subtask("S", "D", Status.NEW, epic.getId()));
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        List<Integer> ids = new ArrayList<>();
+        int cursor = 0;
+        for (List<Task> page = taskManager.getTasks(cursor, 10); !page.isEmpty();
+             page = taskManager.getTasks(cursor, 10)) {
+            assertTrue(page.size() <= 10);
+            page.forEach(item -> ids.add(item.getId()));
+            cursor = page.getLast().getId();
+        }
+        assertEquals(taskManager.getTasks().stream().map(Task::getId).sorted().toList(), ids);
+        assertEquals(25, ids.size());
+        assertEquals(List.of(epic.getId()), taskManager.getEpics(0, 5).stream().map(Task::getId).toList());
+        assertEquals(2, taskManager.getSubtasks(0, 5).size());
+        assertEquals(1, taskManager.getSubtasks(subtask.getId(), 5).size());
+        assertTrue(taskManager.getTasks(0, 0).isEmpty());
+
+        manager.getTask(task.getId());
+        manager.getEpic(epic.getId());
+        manager.getSubtask(subtask.getId());
+        assertEquals(List.of(epic.getId(), subtask.getId()),
+                manager.getHistory(task.getId(), 5).stream().map(Task::getId).toList());
+        assertEquals(List.of(task.getId()), manager.getHistory(0, 1).stream().map(Task::getId).toList());
+
+        manager.removeTask(task.getId());
+        assertTrue(manager.getHistory(task.getId(), 5).isEmpty());
+    }
+
+    @Test
+    void listsFollowIdOrder() {
+        for (int i = 0; i < 40; i++) {
+            manager.addTask(new Task("T" + i, "", Status.NEW));
+            manager.addSubtask(new Subtask("S" + i, "", i % 2 == 0 ? Status.NEW : Status.DONE, epic.getId()));
+        }
+        manager.removeTask(task.getId() + 3);
+
+        TaskManager taskManager = getTaskManagerForChecks();
+        assertAscending(taskManager.getTasks());
+        assertAscending(taskManager.getSubtasks());
+        assertAscending(taskManager.getEpics());
+        assertAscending(taskManager.getSubtasksByEpicId(epic.getId()));
+        assertAscending(taskManager.getByStatus(TaskType.SUBTASK, Status.DONE));
+        assertEquals(41, taskManager.getSubtasksByEpicId(epic.getId()).size());
+    }
+
+    private static void assertAscending(List<? extends Task> items) {
+        final List<Integer> ids = items.stream().map(Task::getId).toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
 }
@@ -0,0 +1,146 @@
+package taskmanager;
+
+import exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncFileBackedTaskManagerTest extends AbstractTaskManagerTest<FileBackedTaskManager> {
+
+    private Path tmpPath = null;
+
+    @BeforeEach
+    void initManager() {
+        try {
+            tmpPath = Files.createTempFile("tmp", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        manager = FileBackedTaskManager.loadFromFile(tmpPath, SavePolicy.async());
+        createTasks();
+    }
+
+    @AfterEach
+    void closeManager() {
+        manager.close();
+    }
+
+    @Override
+    protected FileBackedTaskManager getTaskManagerForChecks() {
+        manager.flush().join();
+        return FileBackedTaskManager.loadFromFile(tmpPath);
+    }
+
+    @Test
+    void intervalPolicyCoalescesChanges() throws IOException {
+        Path path = Files.createTempFile("tmp", ".csv");
+        FileBackedTaskManager intervalManager = FileBackedTaskManager.loadFromFile(path,
+                SavePolicy.interval(Duration.ofHours(1), 1000));
+
+        for (int i = 0; i < 10; i++) {
+            intervalManager.addTask(new Task("Task" + i, "Description", Status.NEW));
+        }
+        assertEquals(0, Files.size(path)); // ни интервал, ни лимит изменений еще не достигнуты
+
+        intervalManager.flush().join();
+        assertEquals(10, FileBackedTaskManager.loadFromFile(path).getTasks().size());
+    }
+
+    @Test
+    void intervalPolicyWritesAfterMaxPendingChanges() throws IOException, InterruptedException {
+        Path path = Files.createTempFile("tmp", ".csv");
+        FileBackedTaskManager intervalManager = FileBackedTaskManager.loadFromFile(path,
+                SavePolicy.interval(Duration.ofHours(1), 5));
+
+        for (int i = 0; i < 5; i++) {
+            intervalManager.addTask(new Task("Task" + i, "Description", Status.NEW));
+        }
+        for (int i = 0; i < 100 && Files.size(path) == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(5, FileBackedTaskManager.loadFromFile(path).getTasks().size());
+    }
+
+    @Test
+    void closeWritesPendingChanges() throws IOException {
+        Path path = Files.createTempFile("tmp", ".csv");
+        FileBackedTaskManager intervalManager = FileBackedTaskManager.loadFromFile(path,
+                SavePolicy.interval(Duration.ofHours(1), 1000));
+        intervalManager.addTask(new Task("Task", "Description", Status.NEW));
+
+        intervalManager.close();
+
+        assertEquals(1, FileBackedTaskManager.loadFromFile(path).getTasks().size());
+    }
+
+    @Test
+    void closeStopsWriterThread() {
+        AtomicInteger writes = new AtomicInteger();
+        SnapshotWriter writer = new SnapshotWriter(writes::incrementAndGet,
+                SavePolicy.interval(Duration.ofHours(1), 1000));
+        final long before = writerThreads();
+
+        writer.changed();
+        assertEquals(before + 1, writerThreads());
+
+        writer.close();
+        assertEquals(1, writes.get());
+        assertEquals(before, writerThreads());
+    }
+
+    private static long writerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("snapshot-writer"))
+                .count();
+    }
+
+    @Test
+    void failedWriteIsRetried() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("tmp").resolve("later");
+        Path path = directory.resolve("tasks.csv");
+        FileBackedTaskManager asyncManager = FileBackedTaskManager.loadFromFile(path, SavePolicy.async());
+        asyncManager.addTask(new Task("Task", "Description", Status.NEW));
+        assertThrows(CompletionException.class, () -> asyncManager.flush().join());
+
+        Files.createDirectory(directory);
+        for (int i = 0; i < 500 && !Files.exists(path); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, FileBackedTaskManager.loadFromFile(path).getTasks().size());
+        asyncManager.close();
+    }
+
+    @Test
+    void failedWriteIsReportedByNextChange() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("tmp").resolve("later");
+        Path path = directory.resolve("tasks.csv");
+        FileBackedTaskManager asyncManager = FileBackedTaskManager.loadFromFile(path, SavePolicy.async());
+        asyncManager.addTask(new Task("Task", "Description", Status.NEW));
+        assertThrows(CompletionException.class, () -> asyncManager.flush().join());
+
+        assertThrows(ManagerSaveException.class,
+                () -> asyncManager.addTask(new Task("Task 2", "Description", Status.NEW)));
+        assertEquals(2, asyncManager.getTasks().size());
+
+        Files.createDirectory(directory);
+        asyncManager.flush().join();
+        asyncManager.addTask(new Task("Task 3", "Description", Status.NEW));
+        asyncManager.close();
+
+        assertEquals(3, FileBackedTaskManager.loadFromFile(path).getTasks().size());
+    }
+}
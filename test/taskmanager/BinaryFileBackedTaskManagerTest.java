@@ -0,0 +1,122 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFileBackedTaskManagerTest extends AbstractTaskManagerTest<FileBackedTaskManager> {
+
+    private Path tmpPath = null;
+
+    @BeforeEach
+    void initManager() {
+        try {
+            tmpPath = Files.createTempFile("tmp", ".bin");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        manager = FileBackedTaskManager.loadFromFile(tmpPath, SavePolicy.sync(), FileFormat.BINARY);
+        createTasks();
+    }
+
+    @Override
+    protected FileBackedTaskManager getTaskManagerForChecks() {
+        return FileBackedTaskManager.loadFromFile(tmpPath);
+    }
+
+    @Test
+    void roundTripKeepsAllFields() {
+        Task timed = manager.addTask(new Task("Имя, с запятой", "Описание \"в кавычках\"", Status.DONE,
+                LocalDateTime.of(2025, 8, 1, 10, 15, 30, 500), Duration.ofMinutes(45)));
+        Epic other = manager.addEpic(new Epic("Эпик", null));
+        Subtask timedSubtask = manager.addSubtask(new Subtask("Подзадача", "", Status.DONE, other.getId(),
+                LocalDateTime.of(2025, 8, 2, 9, 0), Duration.ofMinutes(15)));
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+
+        assertEquals(timed, loaded.getTask(timed.getId()));
+        assertEquals(timedSubtask, loaded.getSubtask(timedSubtask.getId()));
+        assertEquals(manager.getEpic(other.getId()), loaded.getEpic(other.getId()));
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+    }
+
+    @Test
+    void formatIsDetectedAutomatically() throws IOException {
+        assertTrue(TaskBinaryFormat.isBinary(tmpPath));
+
+        TaskManager loaded = Managers.getFileBackedTaskManager(tmpPath);
+
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(manager.getSubtasks(), loaded.getSubtasks());
+
+        Path csvPath = Files.createTempFile("tmp", ".csv");
+        FileBackedTaskManager csvManager = FileBackedTaskManager.loadFromFile(csvPath);
+        csvManager.addTask(new Task("Задача", "", Status.NEW));
+
+        assertFalse(TaskBinaryFormat.isBinary(csvPath));
+        assertEquals(csvManager.getTasks(), Managers.getFileBackedTaskManager(csvPath).getTasks());
+    }
+
+    @Test
+    void csvFileIsConvertedOnSave() throws IOException {
+        Path path = Files.createTempFile("tmp", ".csv");
+        FileBackedTaskManager csvManager = FileBackedTaskManager.loadFromFile(path);
+        csvManager.addTask(new Task("Задача", "", Status.NEW));
+
+        FileBackedTaskManager binaryManager = FileBackedTaskManager.loadFromFile(path, SavePolicy.sync(),
+                FileFormat.BINARY);
+        binaryManager.addTask(new Task("Задача2", "", Status.NEW));
+
+        assertTrue(TaskBinaryFormat.isBinary(path));
+        assertEquals(binaryManager.getTasks(), FileBackedTaskManager.loadFromFile(path).getTasks());
+    }
+
+    @Test
+    void versionOneSnapshotIsRead() throws IOException {
+        Path path = Files.createTempFile("tmp", ".bin");
+        byte[] name = "Старая".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer data = ByteBuffer.allocate(64)
+                .putInt(TaskBinaryFormat.MAGIC).putInt(1)
+                .put((byte) 0).putInt(7).putInt(name.length).put(name).putInt(-1)
+                .put((byte) Status.DONE.ordinal()).putLong(Long.MIN_VALUE).putInt(0).putLong(Long.MIN_VALUE)
+                .flip();
+        Files.write(path, Arrays.copyOf(data.array(), data.limit()));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(path);
+
+        assertEquals(new Task(7, "Старая", null, Status.DONE, null, null), loaded.getTask(7));
+        Files.delete(path);
+    }
+
+    @Test
+    void unknownStatusIsRejected() throws IOException {
+        Path path = Files.createTempFile("tmp", ".bin");
+        byte[] name = "Битая".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer data = ByteBuffer.allocate(64)
+                .putInt(TaskBinaryFormat.MAGIC).putInt(1)
+                .put((byte) 0).putInt(7).putInt(name.length).put(name).putInt(-1)
+                .put((byte) 42).putLong(Long.MIN_VALUE).putInt(0).putLong(Long.MIN_VALUE)
+                .flip();
+        Files.write(path, Arrays.copyOf(data.array(), data.limit()));
+
+        assertThrows(LoadTaskException.class, () -> FileBackedTaskManager.loadFromFile(path));
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,127 @@
+package taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedHistoryManagerTest {
+
+    private static final int CAPACITY = 3;
+
+    private BoundedHistoryManager manager;
+
+    @BeforeEach
+    void initManager() {
+        manager = new BoundedHistoryManager(CAPACITY);
+    }
+
+    @Test
+    void checkAdd() {
+        Task task = task(1, Status.NEW);
+        manager.add(task);
+        List<Task> history = manager.getHistory();
+
+        assertEquals(List.of(task), history);
+        assertNotSame(task, history.getLast());
+    }
+
+    @Test
+    void repeatedViewMovesTaskToEnd() {
+        manager.add(task(1, Status.NEW));
+        manager.add(task(2, Status.NEW));
+        manager.add(task(3, Status.NEW));
+        manager.add(task(1, Status.DONE));
+
+        assertEquals(List.of(task(2, Status.NEW), task(3, Status.NEW), task(1, Status.DONE)), manager.getHistory());
+    }
+
+    @Test
+    void oldestViewIsEvictedWhenFull() {
+        for (int i = 1; i <= 5; i++) {
+            manager.add(task(i, Status.NEW));
+        }
+
+        assertEquals(List.of(task(3, Status.NEW), task(4, Status.NEW), task(5, Status.NEW)), manager.getHistory());
+        manager.remove(1);
+        assertEquals(CAPACITY, manager.getHistory().size());
+    }
+
+    @Test
+    void removeFreesSlot() {
+        manager.add(task(1, Status.NEW));
+        manager.add(task(2, Status.NEW));
+        manager.add(task(3, Status.NEW));
+        manager.remove(2);
+        manager.add(task(4, Status.NEW));
+
+        assertEquals(List.of(task(1, Status.NEW), task(3, Status.NEW), task(4, Status.NEW)), manager.getHistory());
+
+        manager.remove(1);
+        manager.remove(4);
+        manager.remove(3);
+        assertTrue(manager.getHistory().isEmpty());
+        manager.add(task(5, Status.NEW));
+        assertEquals(List.of(task(5, Status.NEW)), manager.getHistory());
+    }
+
+    @Test
+    void unchangedTaskIsNotCopiedAgain() {
+        Task task = task(1, Status.NEW);
+        manager.add(task);
+        Task stored = manager.getHistory().getFirst();
+
+        manager.add(task);
+        assertSame(stored, manager.getHistory().getFirst());
+
+        task.setStatus(Status.DONE);
+        manager.add(task);
+        assertEquals(Status.NEW, stored.getStatus());
+        assertEquals(Status.DONE, manager.getHistory().getFirst().getStatus());
+    }
+
+    @Test
+    void selectedThroughManagersProperty() {
+        System.setProperty(Managers.HISTORY_CAPACITY_PROPERTY, "10");
+        try {
+            HistoryManager history = Managers.getDefaultHistory();
+            assertInstanceOf(BoundedHistoryManager.class, history);
+            assertEquals(10, ((BoundedHistoryManager) history).getCapacity());
+        } finally {
+            System.clearProperty(Managers.HISTORY_CAPACITY_PROPERTY);
+        }
+        assertInstanceOf(InMemoryHistoryManager.class, Managers.getDefaultHistory());
+    }
+
+    private static Task task(int id, Status status) {
+        return new Task(id, "Задача" + id, "Описание", status, null, null);
+    }
+
+    @Test
+    void historyPageStartsAfterCursor() {
+        for (int id = 1; id <= 4; id++) {
+            manager.add(task(id, Status.NEW));
+        }
+
+        assertEquals(List.of(2, 3), manager.getHistory(0, 2).stream().map(Task::getId).toList());
+        assertEquals(List.of(3, 4), manager.getHistory(2, 5).stream().map(Task::getId).toList());
+        assertTrue(manager.getHistory(4, 5).isEmpty());
+        assertTrue(manager.getHistory(3, 0).isEmpty());
+    }
+
+    @Test
+    void expiredCursorGivesEmptyPage() {
+        for (int id = 1; id <= 4; id++) {
+            manager.add(task(id, Status.NEW));
+        }
+
+        manager.remove(3);
+        assertTrue(manager.getHistory(3, 5).isEmpty());
+        assertTrue(manager.getHistory(1, 5).isEmpty()); // вытеснена из ограниченной истории
+        assertEquals(List.of(4), manager.getHistory(2, 5).stream().map(Task::getId).toList());
+    }
+}
@@ -0,0 +1,172 @@
+package taskmanager;
+
+import exception.TaskTimeConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends AbstractTaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2000;
+
+    @BeforeEach
+    void initManager() {
+        this.manager = new ConcurrentTaskManager();
+        createTasks();
+    }
+
+    @Override
+    protected ConcurrentTaskManager getTaskManagerForChecks() {
+        return this.manager;
+    }
+
+    @Test
+    void concurrentMutationsKeepInvariants() throws Exception {
+        final List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(manager.addEpic(new Epic("Эпик" + i, "")));
+        }
+        final LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        final Status[] statuses = {Status.NEW, Status.IN_PROGRESS, Status.DONE};
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    LocalDateTime time = random.nextBoolean() ? base.plusMinutes(random.nextInt(20_000)) : null;
+                    Duration duration = Duration.ofMinutes(1 + random.nextInt(60));
+                    Status status = statuses[random.nextInt(statuses.length)];
+                    try {
+                        switch (random.nextInt(6)) {
+                            case 0 -> manager.addTask(new Task("T", "", status, time, duration));
+                            case 1 -> manager.addSubtask(new Subtask("S", "", status,
+                                    epics.get(random.nextInt(epics.size())).getId(), time, duration));
+                            case 2 -> {
+                                List<Subtask> subtasks = manager.getSubtasks();
+                                if (!subtasks.isEmpty()) {
+                                    Subtask updated = subtasks.get(random.nextInt(subtasks.size())).clone();
+                                    updated.setStatus(status);
+                                    updated.setStartTime(time);
+                                    manager.updateSubtask(updated);
+                                }
+                            }
+                            case 3 -> {
+                                List<Subtask> subtasks = manager.getSubtasks();
+                                if (!subtasks.isEmpty())
+                                    manager.removeSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+                            }
+                            case 4 -> {
+                                List<Task> tasks = manager.getTasks();
+                                if (!tasks.isEmpty())
+                                    manager.removeTask(tasks.get(random.nextInt(tasks.size())).getId());
+                            }
+                            default -> {
+                                manager.getPrioritizedTasks();
+                                manager.getEpic(epics.get(random.nextInt(epics.size())).getId());
+                            }
+                        }
+                    } catch (TaskTimeConflictException ignored) {
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        checkInvariants();
+    }
+
+    private void checkInvariants() {
+        Set<Integer> ids = new HashSet<>();
+        manager.getTasks().forEach(task -> assertTrue(ids.add(task.getId())));
+        manager.getEpics().forEach(epic -> assertTrue(ids.add(epic.getId())));
+        manager.getSubtasks().forEach(subtask -> assertTrue(ids.add(subtask.getId())));
+
+        Task previous = null;
+        int timed = 0;
+        for (Task task : manager.getPrioritizedTasks()) {
+            if (previous != null) {
+                assertFalse(task.getStartTime().isBefore(previous.getStartTime()));
+                if (previous.getEndTime() != null && task.getEndTime() != null)
+                    assertTrue(previous.getEndTime().isBefore(task.getStartTime()));
+            }
+            previous = task;
+            timed++;
+        }
+        long expectedTimed = manager.getTasks().stream().filter(task -> task.getStartTime() != null).count()
+                + manager.getSubtasks().stream().filter(task -> task.getStartTime() != null).count();
+        assertEquals(expectedTimed, timed);
+
+        for (Subtask subtask : manager.getSubtasks()) {
+            Epic epic = manager.getEpic(subtask.getEpicId());
+            assertNotNull(epic);
+            assertTrue(epic.getSubtasks().contains(subtask.getId()));
+        }
+        for (Epic epic : manager.getEpics()) {
+            List<Subtask> subtasks = manager.getSubtasksByEpicId(epic.getId());
+            assertEquals(epic.getSubtasks().size(), subtasks.size());
+
+            Status expected = Status.NEW;
+            if (!subtasks.isEmpty()) {
+                Status first = subtasks.get(0).getStatus();
+                boolean same = subtasks.stream().allMatch(subtask -> subtask.getStatus() == first);
+                expected = same ? first : Status.IN_PROGRESS;
+            }
+            assertEquals(expected, epic.getStatus());
+        }
+    }
+
+    @Test
+    void iterateTasksBetweenPagesWithoutRepeats() {
+        final LocalDateTime start = LocalDateTime.of(2025, 9, 1, 0, 0);
+        final List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new Task("T" + i, "", Status.NEW, start.plusMinutes(10L * i), Duration.ofMinutes(5)));
+        }
+        manager.addTasks(batch);
+
+        Iterator<Task> iterator = manager.iterateTasksBetween(start, start.plusDays(30));
+        List<Task> seen = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            seen.add(iterator.next());
+        }
+        // изменение расписания между страницами: уже отданная задача удаляется, а в конец добавляется новая
+        manager.removeTask(seen.getLast().getId());
+        manager.addTask(new Task("New", "", Status.NEW, start.plusDays(20), Duration.ofMinutes(5)));
+        iterator.forEachRemaining(seen::add);
+
+        assertEquals(1001, seen.size());
+        assertEquals(1001, seen.stream().map(Task::getId).distinct().count());
+        assertEquals("New", seen.getLast().getName());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
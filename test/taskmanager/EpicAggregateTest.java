@@ -0,0 +1,112 @@
+package taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpicAggregateTest {
+
+    private EpicAggregate aggregate;
+
+    @BeforeEach
+    void initAggregate() {
+        aggregate = new EpicAggregate();
+    }
+
+    private static Subtask subtask(int id, Status status, LocalDateTime start, long minutes) {
+        return new Subtask(id, "Subtask" + id, "", status, 1, start,
+                minutes > 0 ? Duration.ofMinutes(minutes) : null);
+    }
+
+    @Test
+    void emptyAggregate() {
+        assertTrue(aggregate.isEmpty());
+        assertEquals(Status.NEW, aggregate.getStatus());
+        assertNull(aggregate.getStartTime());
+        assertNull(aggregate.getEndTime());
+        assertEquals(Duration.ZERO, aggregate.getDuration());
+    }
+
+    @Test
+    void status() {
+        Subtask done1 = subtask(1, Status.DONE, null, 0);
+        Subtask done2 = subtask(2, Status.DONE, null, 0);
+        Subtask fresh = subtask(3, Status.NEW, null, 0);
+
+        aggregate.put(done1);
+        aggregate.put(done2);
+        assertEquals(Status.DONE, aggregate.getStatus());
+
+        aggregate.put(fresh);
+        assertEquals(Status.IN_PROGRESS, aggregate.getStatus());
+
+        aggregate.remove(done1.getId());
+        aggregate.remove(done2.getId());
+        assertEquals(Status.NEW, aggregate.getStatus());
+    }
+
+    @Test
+    void timeAfterRemovingBoundarySubtasks() {
+        LocalDateTime time = LocalDateTime.of(2025, 2, 1, 10, 0);
+        Subtask first = subtask(1, Status.NEW, time, 30);
+        Subtask middle = subtask(2, Status.NEW, time.plusHours(1), 15);
+        Subtask last = subtask(3, Status.NEW, time.plusHours(2), 45);
+        Subtask noTime = subtask(4, Status.NEW, null, 0);
+
+        aggregate.put(middle);
+        aggregate.put(last);
+        aggregate.put(first);
+        aggregate.put(noTime);
+
+        assertEquals(time, aggregate.getStartTime());
+        assertEquals(time.plusHours(2).plusMinutes(45), aggregate.getEndTime());
+        assertEquals(Duration.ofMinutes(90), aggregate.getDuration());
+
+        aggregate.remove(first.getId());
+        aggregate.remove(last.getId());
+
+        assertEquals(time.plusHours(1), aggregate.getStartTime());
+        assertEquals(time.plusHours(1).plusMinutes(15), aggregate.getEndTime());
+        assertEquals(Duration.ofMinutes(15), aggregate.getDuration());
+        assertFalse(aggregate.isEmpty());
+    }
+
+    @Test
+    void putReplacesCountedValues() {
+        LocalDateTime time = LocalDateTime.of(2025, 2, 1, 10, 0);
+        Subtask stored = subtask(1, Status.NEW, time, 30);
+        aggregate.put(stored);
+
+        /* Объект изменен на месте: вычесть нужно то, что было учтено, а не текущие значения */
+        stored.setStatus(Status.DONE);
+        stored.setDuration(Duration.ofMinutes(10));
+        aggregate.put(stored);
+
+        assertEquals(Status.DONE, aggregate.getStatus());
+        assertEquals(Duration.ofMinutes(10), aggregate.getDuration());
+        assertEquals(time.plusMinutes(10), aggregate.getEndTime());
+
+        aggregate.remove(stored.getId());
+        assertTrue(aggregate.isEmpty());
+        assertNull(aggregate.getStartTime());
+        assertNull(aggregate.getEndTime());
+        assertEquals(Duration.ZERO, aggregate.getDuration());
+    }
+
+    @Test
+    void clear() {
+        aggregate.put(subtask(1, Status.DONE, LocalDateTime.of(2025, 2, 1, 10, 0), 30));
+        aggregate.clear();
+
+        assertTrue(aggregate.isEmpty());
+        assertEquals(Status.NEW, aggregate.getStatus());
+        assertNull(aggregate.getStartTime());
+        assertEquals(Duration.ZERO, aggregate.getDuration());
+    }
+}
@@ -1,11 +1,17 @@
 package taskmanager;
 
+import exception.LoadTaskException;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 class FileBackedTaskManagerTest extends AbstractTaskManagerTest<FileBackedTaskManager> {
 
     private Path tmpPath = null;
@@ -26,4 +32,53 @@ class FileBackedTaskManagerTest extends AbstractTaskManagerTest<FileBackedTaskMa
     protected FileBackedTaskManager getTaskManagerForChecks() {
         return FileBackedTaskManager.loadFromFile(tmpPath);
     }
-}
\ No newline at end of file
+
+    @Test
+    void textsWithSeparatorsSurviveReload() {
+        Task task = manager.addTask(new Task("Купить: хлеб, молоко", "Сказать \"спасибо\"\nи уйти",
+                Status.NEW, null, null));
+
+        Task loaded = getTaskManagerForChecks().getTask(task.getId());
+        assertEquals("Купить: хлеб, молоко", loaded.getName());
+        assertEquals("Сказать \"спасибо\"\nи уйти", loaded.getDescription());
+    }
+
+    @Test
+    void legacyFileIsReadWithoutQuotes() throws IOException {
+        Path path = Files.createTempFile("tmp", ".csv");
+        Files.writeString(path, "type, id, name, description, status, links, start_time, [end_time,] duration\n"
+                + "TASK, 1, \"Важно\" купить, null, NEW, null, null\n"
+                + "TASK, 2, \"Без пары, Описание, NEW, null, null\n"
+                + "TASK, 3, Третья, Описание, DONE, null, null\n");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(path);
+        assertEquals("\"Важно\" купить", loaded.getTask(1).getName());
+        assertEquals("null", loaded.getTask(1).getDescription()); // так читала старая версия
+        assertEquals("\"Без пары", loaded.getTask(2).getName());
+        assertEquals(Status.DONE, loaded.getTask(3).getStatus());
+        Files.delete(path);
+    }
+
+    @Test
+    void savedFileIsMarkedWithFormat() throws IOException {
+        manager.addTask(new Task("\"Важно\" купить", "Описание", Status.NEW, null, null));
+
+        assertTrue(Files.readAllLines(tmpPath).getFirst().contains("; format=2"));
+        assertEquals("\"Важно\" купить", getTaskManagerForChecks().getTasks().getLast().getName());
+    }
+
+    @Test
+    void malformedOrUnknownFormatIsRejected() throws IOException {
+        final String header = "type, id, name, description, status, links, start_time, [end_time,] duration";
+        Path path = Files.createTempFile("tmp", ".csv");
+
+        Files.writeString(path, header + "; format=2; journal=0\n"
+                + "TASK, 1, \"Без пары, Описание, NEW, null, null\n"
+                + "TASK, 2, \"Вторая\", Описание, NEW, null, null\n");
+        assertThrows(LoadTaskException.class, () -> FileBackedTaskManager.loadFromFile(path));
+
+        Files.writeString(path, header + "; format=3; journal=0\n");
+        assertThrows(LoadTaskException.class, () -> FileBackedTaskManager.loadFromFile(path));
+        Files.delete(path);
+    }
+}
@@ -1,6 +1,23 @@
 package taskmanager;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InMemoryTaskManagerTest extends AbstractTaskManagerTest<InMemoryTaskManager> {
 
@@ -14,4 +31,96 @@ class InMemoryTaskManagerTest extends AbstractTaskManagerTest<InMemoryTaskManage
     protected InMemoryTaskManager getTaskManagerForChecks() {
         return this.manager;
     }
-}
\ No newline at end of file
+
+    @Test
+    void subtaskMutationsDoNotTouchHistory() {
+        var history = new HistoryManager() {
+            int added;
+
+            @Override
+            public void add(Task task) {
+                added++;
+            }
+
+            @Override
+            public void remove(int id) {
+            }
+
+            @Override
+            public List<Task> getHistory() {
+                return List.of();
+            }
+        };
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(history);
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание"));
+
+        Assertions.assertDoesNotThrow(() -> {
+            LocalDateTime time = LocalDateTime.of(2025, 5, 1, 9, 0);
+            for (int i = 0; i < 10; i++) {
+                Subtask added = taskManager.addSubtask(new Subtask("Подзадача" + i, "", Status.NEW, epic.getId(),
+                        time.plusHours(i), Duration.ofMinutes(30)));
+                Subtask updated = added.clone();
+                updated.setStatus(Status.DONE);
+                taskManager.updateSubtask(updated);
+            }
+            taskManager.removeSubtask(epic.getSubtasks().iterator().next());
+        });
+
+        assertEquals(0, history.added);
+        assertEquals(Status.DONE, taskManager.getEpicStatus(epic.getId()));
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void slowSubscriberDoesNotStallWriters() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final List<TaskChange> received = new CopyOnWriteArrayList<>();
+        manager.changes().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(TaskChange item) {
+                received.add(item);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (item.task().getName().equals("Маркер"))
+                    drained.countDown();
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (int i = 0; i < 10_000; i++) {
+            manager.addTask(new Task("Задача" + i, "", Status.NEW));
+        }
+        release.countDown();
+
+        /* Пока буфер подписчика полон, новые события для него отбрасываются */
+        for (int i = 0; i < 50 && drained.getCount() > 0; i++) {
+            manager.addTask(new Task("Маркер", "", Status.NEW));
+            drained.await(100, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0, drained.getCount());
+        assertTrue(received.size() < 10_000);
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i).sequence() > received.get(i - 1).sequence());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package taskmanager;
+
+import exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledFileBackedTaskManagerTest extends AbstractTaskManagerTest<FileBackedTaskManager> {
+
+    private static final long JOURNAL_THRESHOLD = 1024;
+
+    private Path tmpPath = null;
+
+    @BeforeEach
+    void initManager() {
+        try {
+            tmpPath = Files.createTempFile("tmp", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        manager = FileBackedTaskManager.loadFromFile(tmpPath, SavePolicy.journal(JOURNAL_THRESHOLD));
+        createTasks();
+    }
+
+    @AfterEach
+    void closeManager() {
+        manager.close();
+    }
+
+    @Override
+    protected FileBackedTaskManager getTaskManagerForChecks() {
+        manager.awaitCompaction();
+        return FileBackedTaskManager.loadFromFile(tmpPath);
+    }
+
+    @Test
+    void changesAreAppendedToJournal() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        final long snapshotSize = Files.size(tmpPath);
+        final long journalSize = Files.size(journalPath);
+
+        manager.removeTask(task.getId());
+
+        assertEquals(snapshotSize, Files.size(tmpPath));
+        assertTrue(Files.size(journalPath) > journalSize);
+        assertNull(getTaskManagerForChecks().getTask(task.getId()));
+    }
+
+    @Test
+    void journalIsCompactedIntoSnapshot() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+
+        for (int i = 0; i < 50; i++) {
+            Task added = manager.addTask(new Task("Task" + i, "Description " + i, Status.NEW));
+            manager.removeTask(added.getId());
+        }
+        manager.awaitCompaction();
+
+        assertTrue(Files.size(tmpPath) > 0);
+        assertTrue(!Files.exists(journalPath) || Files.size(journalPath) < JOURNAL_THRESHOLD);
+        assertFalse(Files.exists(Path.of(tmpPath + ".log.old")));
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(manager.getSubtasks(), loaded.getSubtasks());
+        assertEquals(manager.getEpics().size(), loaded.getEpics().size());
+    }
+
+    @Test
+    void failedCompactionIsReported() throws IOException {
+        final Path oldJournalPath = Path.of(tmpPath + ".log.old");
+        // каталог на месте временного файла не дает записать снимок
+        final Path blocker = Files.createDirectory(Path.of(tmpPath + ".tmp"));
+        Files.createFile(blocker.resolve("file"));
+
+        for (int i = 0; i < 50 && !Files.exists(oldJournalPath); i++) {
+            Task added = manager.addTask(new Task("Task" + i, "Description " + i, Status.NEW));
+            manager.removeTask(added.getId());
+        }
+        assertThrows(ManagerSaveException.class, manager::awaitCompaction);
+        assertTrue(Files.exists(oldJournalPath));
+
+        Files.delete(blocker.resolve("file"));
+        Files.delete(blocker);
+        for (int i = 0; i < 50 && Files.exists(oldJournalPath); i++) {
+            Task added = manager.addTask(new Task("Task" + i, "Description " + i, Status.NEW));
+            manager.removeTask(added.getId());
+            manager.awaitCompaction();
+        }
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+        assertFalse(Files.exists(oldJournalPath));
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(manager.getSubtasks(), loaded.getSubtasks());
+    }
+
+    @Test
+    void batchIsWrittenAsOneGroup() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        final long journalSize = Files.size(journalPath);
+
+        manager.addTasks(List.of(new Task("B1", "D", Status.NEW), new Task("B2", "D", Status.NEW)));
+
+        final byte[] journal = Files.readAllBytes(journalPath);
+        final String appended = new String(journal, (int) journalSize, journal.length - (int) journalSize,
+                StandardCharsets.UTF_8);
+        assertTrue(appended.startsWith("{\n+TASK"));
+        assertTrue(appended.endsWith("}\n"));
+        assertEquals(4, appended.lines().count());
+    }
+
+    @Test
+    void transactionIsWrittenAsOneGroup() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        final long journalSize = Files.size(journalPath);
+
+        manager.inTransaction(tx -> {
+            tx.removeTask(task.getId());
+            tx.addTask(new Task("T1", "D", Status.NEW));
+            tx.removeEpic(epic.getId());
+        });
+
+        final byte[] journal = Files.readAllBytes(journalPath);
+        final String appended = new String(journal, (int) journalSize, journal.length - (int) journalSize,
+                StandardCharsets.UTF_8);
+        assertTrue(appended.startsWith("{\n-"));
+        assertTrue(appended.endsWith("}\n"));
+        assertEquals(6, appended.lines().count());
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+        assertNull(loaded.getTask(task.getId()));
+        assertNull(loaded.getEpic(epic.getId()));
+        assertNull(loaded.getSubtask(subtask.getId()));
+        assertEquals(List.of("T1"), loaded.getTasks().stream().map(Task::getName).toList());
+    }
+
+    @Test
+    void unterminatedGroupIsDiscarded() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        final int tasks = manager.getTasks().size();
+        Files.writeString(journalPath, "{\n+TASK, 100, Оборванная, пачка, NEW, null, null\n",
+                StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+        assertEquals(tasks, loaded.getTasks().size());
+
+        loaded.addTask(new Task("После", "обрыва", Status.NEW));
+        assertEquals(tasks + 1, getTaskManagerForChecks().getTasks().size());
+    }
+
+    @Test
+    void legacyJournalIsReadWithoutQuotes() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        manager.close();
+        Files.delete(journalPath);
+        Files.writeString(journalPath, "+TASK, 100, \"Важно\" купить, Описание, NEW, null, null\n"
+                + "#5\n+TASK, 101, \"a, b\", Описание, NEW, null, null\n");
+
+        FileBackedTaskManager loaded = getTaskManagerForChecks();
+        assertEquals("\"Важно\" купить", loaded.getTask(100).getName());
+        assertEquals("a, b", loaded.getTask(101).getName());
+    }
+
+    @Test
+    void journalAlreadyInSnapshotIsNotReplayed() throws IOException {
+        final Path journalPath = Path.of(tmpPath + ".log");
+        final LocalDateTime slot = LocalDateTime.of(2030, 1, 10, 9, 0);
+        final Task x = manager.addTask(new Task("X", "", Status.NEW, slot, Duration.ofMinutes(30)));
+        final Task moved = x.clone();
+        moved.setStartTime(slot.plusHours(2));
+        manager.updateTask(moved);
+        final Task y = manager.addTask(new Task("Y", "", Status.NEW, slot, Duration.ofMinutes(30)));
+        final byte[] journal = Files.readAllBytes(journalPath);
+
+        // снимок уже записан, а старый журнал удалить не успели
+        FileBackedTaskManager saved = getTaskManagerForChecks();
+        saved.updateTask(saved.getTask(task.getId()));
+        assertFalse(Files.exists(journalPath));
+        Files.write(Path.of(tmpPath + ".log.old"), journal);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tmpPath, SavePolicy.journal(JOURNAL_THRESHOLD));
+        assertEquals(slot.plusHours(2), loaded.getTask(x.getId()).getStartTime());
+        assertEquals(slot, loaded.getTask(y.getId()).getStartTime());
+
+        final Task added = loaded.addTask(new Task("Z", "", Status.NEW));
+        assertTrue(added.getId() > y.getId());
+        assertNotNull(getTaskManagerForChecks().getTask(added.getId()));
+    }
+}
@@ -10,6 +10,12 @@ class ManagersTest {
         Assertions.assertNotNull(manager);
     }
 
+    @Test
+    void getConcurrentTaskManager() {
+        TaskManager manager = Managers.getConcurrentTaskManager();
+        Assertions.assertInstanceOf(ConcurrentTaskManager.class, manager);
+    }
+
     @Test
     void getDefaultHistory() {
         HistoryManager manager = Managers.getDefaultHistory();
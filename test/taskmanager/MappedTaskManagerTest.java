@@ -0,0 +1,137 @@
+package taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTaskManagerTest extends AbstractTaskManagerTest<MappedTaskManager> {
+
+    private Path tmpPath = null;
+    private final List<MappedTaskManager> opened = new ArrayList<>();
+
+    @BeforeEach
+    void initManager() {
+        try {
+            tmpPath = Files.createTempFile("tmp", ".map");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        manager = MappedTaskManager.open(tmpPath, 2);
+        opened.add(manager);
+        createTasks();
+    }
+
+    @AfterEach
+    void deleteStore() throws IOException {
+        opened.forEach(MappedTaskManager::close);
+        opened.clear();
+        final String prefix = tmpPath.getFileName().toString();
+        try (Stream<Path> files = Files.list(tmpPath.toAbsolutePath().getParent())) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith(prefix)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Override
+    protected MappedTaskManager getTaskManagerForChecks() {
+        MappedTaskManager reopened = MappedTaskManager.open(tmpPath);
+        opened.add(reopened);
+        return reopened;
+    }
+
+    @Test
+    void tasksSurviveCacheEvictionAndReopen() {
+        final List<Task> added = new ArrayList<>();
+        final LocalDateTime base = LocalDateTime.of(2025, 9, 1, 8, 0, 15, 250);
+        for (int i = 0; i < 100; i++) {
+            added.add(manager.addTask(new Task("Задача" + i, i % 2 == 0 ? null : "Описание" + i, Status.IN_PROGRESS,
+                    i % 3 == 0 ? base.plusHours(i) : null, i % 3 == 0 ? Duration.ofMinutes(30) : null)));
+        }
+        Epic epic = manager.addEpic(new Epic("Эпик", "Большой"));
+        Subtask subtask = manager.addSubtask(new Subtask("Подзадача", "", Status.DONE, epic.getId(),
+                base.minusDays(1), Duration.ofMinutes(10)));
+
+        for (Task task : added) {
+            assertEquals(task, manager.getTask(task.getId()));
+        }
+
+        MappedTaskManager reopened = getTaskManagerForChecks();
+        for (Task task : added) {
+            assertEquals(task, reopened.getTask(task.getId()));
+        }
+        assertEquals(manager.getEpic(epic.getId()), reopened.getEpic(epic.getId()));
+        assertEquals(subtask, reopened.getSubtask(subtask.getId()));
+        assertEquals(manager.getPrioritizedTasks(), reopened.getPrioritizedTasks());
+        assertEquals(subtask.getId() + 1, reopened.addTask(new Task("Новая", "", Status.NEW)).getId());
+    }
+
+    @Test
+    void removedSlotsAreReused() throws IOException {
+        final long size = Files.size(tmpPath);
+        for (int i = 0; i < 1000; i++) {
+            Task task = manager.addTask(new Task("Задача", "", Status.NEW));
+            manager.removeTask(task.getId());
+        }
+
+        assertEquals(size, Files.size(tmpPath));
+        assertEquals(manager.getTasks(), getTaskManagerForChecks().getTasks());
+    }
+
+    @Test
+    void textChangedInPlaceSurvivesReopen() {
+        Task stored = manager.getTask(task.getId());
+        stored.setName("Новое имя");
+        stored.setDescription(null);
+        manager.updateTask(stored);
+        Epic storedEpic = manager.getEpic(epic.getId());
+        storedEpic.setName("Новый эпик");
+        manager.updateEpic(storedEpic);
+        manager.close();
+        opened.remove(manager);
+
+        MappedTaskManager reopened = getTaskManagerForChecks();
+        assertEquals("Новое имя", reopened.getTask(task.getId()).getName());
+        assertNull(reopened.getTask(task.getId()).getDescription());
+        assertEquals("Новый эпик", reopened.getEpic(epic.getId()).getName());
+    }
+
+    @Test
+    void replacedStringsAreCompacted() {
+        final String text = "Описание ".repeat(100);
+        Task renamed = manager.addTask(new Task("Задача", text, Status.NEW));
+        for (int i = 0; i < 2000; i++) {
+            Task updated = renamed.clone();
+            updated.setDescription(text + i);
+            renamed = manager.updateTask(updated);
+        }
+
+        final MappedTaskStore store = manager.store();
+        assertTrue(store.stringsFileSize() < 2 * (1 << 20), "размер файла строк: " + store.stringsFileSize());
+        assertEquals(text + 1999, manager.getTask(renamed.getId()).getDescription());
+        manager.close();
+        opened.remove(manager);
+
+        MappedTaskManager reopened = getTaskManagerForChecks();
+        assertEquals(text + 1999, reopened.getTask(renamed.getId()).getDescription());
+        assertEquals(epic.getName(), reopened.getEpic(epic.getId()).getName());
+        assertEquals(subtask, reopened.getSubtask(subtask.getId()));
+        assertFalse(Files.exists(Path.of(tmpPath + ".str")));
+    }
+}
@@ -0,0 +1,157 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTaskLoaderTest {
+
+    private static final String HEADER = "type,id,name,description,status,epic,startTime,duration\n";
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private Path path;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        path = Files.createTempFile("tmp", ".csv");
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void largeFilesAreStreamed() {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final long heap = 4L << 30;
+
+        assertTrue(ParallelTaskLoader.shouldUse(ParallelTaskLoader.MIN_PARALLEL_SIZE, pool, heap));
+        assertTrue(ParallelTaskLoader.shouldUse(ParallelTaskLoader.MAX_PARALLEL_SIZE, pool, heap));
+        assertFalse(ParallelTaskLoader.shouldUse(ParallelTaskLoader.MAX_PARALLEL_SIZE + 1, pool, heap));
+        assertFalse(ParallelTaskLoader.shouldUse(2L << 30, pool, heap));
+        assertFalse(ParallelTaskLoader.shouldUse(64L << 20, pool, 256L << 20)); // больше восьмой части кучи
+        assertFalse(ParallelTaskLoader.shouldUse(ParallelTaskLoader.MIN_PARALLEL_SIZE, null, heap));
+    }
+
+    @Test
+    void chunksKeepFileOrder() throws IOException {
+        final String[] texts = {"Задача", "a, b", "две\nстроки\n\"в кавычках\"", "\n", "null", null, "\"\n\""};
+        final List<Task> items = new ArrayList<>();
+        for (int i = 1; i <= 5000; i++) {
+            String name = texts[i % texts.length];
+            String description = texts[(i * 3) % texts.length];
+            switch (i % 3) {
+                case 0 -> items.add(new Task(i, name, description, Status.NEW,
+                        LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i), Duration.ofMinutes(1)));
+                case 1 -> items.add(new Epic(i, name, description));
+                default -> items.add(new Subtask(i, name, description, Status.DONE, i - 1, null, null));
+            }
+        }
+        StringBuilder csv = new StringBuilder(HEADER);
+        items.forEach(item -> item.appendLine(csv));
+        Files.writeString(path, csv);
+
+        final List<List<Task>> chunks = read(1000);
+        assertTrue(chunks.size() > 10);
+        final List<Task> loaded = chunks.stream().flatMap(List::stream).toList();
+        assertEquals(items.size(), loaded.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).toLine(), loaded.get(i).toLine());
+        }
+    }
+
+    @Test
+    void unbalancedQuotesFallBackToSequentialParsing() throws IOException {
+        /* Прежние версии писали кавычку внутри поля как есть, четность кавычек в таком файле неверна */
+        StringBuilder csv = new StringBuilder(HEADER);
+        csv.append("TASK, 1, Кавычка \" в середине, Описание, NEW, null, null\n");
+        csv.append("EPIC, 2, \"a\nb\", null\n".repeat(50));
+        for (int i = 3; i < 500; i++) {
+            csv.append("TASK, ").append(i).append(", Задача, Описание, NEW, null, null\n");
+        }
+        Files.writeString(path, csv);
+
+        final List<Task> loaded = read(64).stream().flatMap(List::stream).toList();
+        assertEquals(1 + 50 + 497, loaded.size());
+        assertEquals("Кавычка \" в середине", loaded.getFirst().getName());
+        assertEquals("a\nb", loaded.get(1).getName());
+        assertEquals(499, loaded.getLast().getId());
+    }
+
+    @Test
+    void reportsMalformedLine() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i < 500; i++) {
+            csv.append("TASK, ").append(i).append(", Задача, Описание, ").append(i == 300 ? "LATER" : "NEW")
+                    .append(", null, null\n");
+        }
+        Files.writeString(path, csv);
+
+        assertThrows(LoadTaskException.class, () -> read(256));
+    }
+
+    @Test
+    void fileWithoutTrailingLineBreak() throws IOException {
+        Files.write(path, (HEADER + "TASK, 1, Задача, Описание, NEW, null, null\n"
+                + "TASK, 2, Задача, Описание, NEW, null, null").getBytes(StandardCharsets.UTF_8));
+
+        final List<Task> loaded = read(16).stream().flatMap(List::stream).toList();
+        assertEquals(List.of(1, 2), loaded.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void managerLinksSubtasksAcrossChunks() {
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(path, SavePolicy.journal(Long.MAX_VALUE));
+        final List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            epicIds.add(manager.addEpic(new Epic("Эпик, " + i, "Описание")).getId());
+        }
+        for (int i = 0; i < 30_000; i++) {
+            if (i % 2 == 0) {
+                manager.addTask(new Task("Задача " + i, "Описание\nв две строки", Status.NEW,
+                        LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(2L * i), Duration.ofMinutes(1)));
+            } else {
+                manager.addSubtask(new Subtask("Подзадача " + i, "Описание", Status.DONE,
+                        epicIds.get(i % epicIds.size())));
+            }
+        }
+        manager.save();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(path, SavePolicy.sync(), FileFormat.CSV,
+                pool);
+        assertEquals(manager.getTasks().size(), loaded.getTasks().size());
+        assertEquals(manager.getSubtasks().size(), loaded.getSubtasks().size());
+        assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+        for (int epicId : epicIds) {
+            assertEquals(manager.getEpic(epicId).getSubtasks(), loaded.getEpic(epicId).getSubtasks());
+            assertEquals(manager.getEpic(epicId).getStatus(), loaded.getEpic(epicId).getStatus());
+        }
+    }
+
+    private List<List<Task>> read(int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return ParallelTaskLoader.read(channel, pool, chunkSize);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package taskmanager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static Task task(int id, String name, String description) {
+        return new Task(id, name, description, Status.NEW, null, null);
+    }
+
+    @Test
+    void tokensAreLowercaseWordsWithoutYo() {
+        assertEquals(List.of("еще", "2", "отчета"), SearchIndex.tokens("ЕЩЁ 2 отчёта!"));
+        assertEquals(List.of("a1", "b"), SearchIndex.tokens(" a1,b "));
+        assertTrue(SearchIndex.tokens(null).isEmpty());
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        SearchIndex index = new SearchIndex();
+        index.put(task(1, "Написать отчет", "квартальный"));
+        index.put(task(2, "Позвонить", "обсудить отчет"));
+        index.put(task(3, "Отчеты", "годовые"));
+        index.put(task(4, "Отчет", ""));
+        index.put(task(5, "Другое", "отчетность"));
+
+        assertEquals(List.of(1, 4, 3, 2, 5), index.search("отчет", 10));
+        assertEquals(List.of(1, 3), index.search("отч", 2));
+        assertEquals(List.of(1), index.search("квар НАП", 10));
+        assertTrue(index.search("отчет звонок", 10).isEmpty());
+        assertTrue(index.search(" , ", 10).isEmpty());
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        SearchIndex index = new SearchIndex();
+        index.put(task(1, "Купить молоко", null));
+        index.put(task(2, "Молоко", "проверить срок"));
+
+        index.put(task(1, "Купить хлеб", null));
+        assertEquals(List.of(2), index.search("молоко", 10));
+        assertEquals(List.of(1), index.search("хлеб", 10));
+
+        index.remove(2);
+        index.remove(2);
+        assertTrue(index.search("мол", 10).isEmpty());
+        assertTrue(index.search("срок", 10).isEmpty());
+    }
+
+    @Test
+    void sameWordsInOtherFieldsAreReindexed() {
+        SearchIndex index = new SearchIndex();
+        index.put(task(1, "Отчет", "срочно"));
+        index.put(task(2, "Срочно", "отчет"));
+        assertEquals(List.of(1, 2), index.search("отчет", 10));
+
+        index.put(task(1, "срочно", "Отчет!")); // те же слова, но поменялись местами
+        assertEquals(List.of(1, 2), index.search("срочно", 10));
+        assertEquals(List.of(1, 2), index.search("отчет", 10));
+        index.put(task(2, "Срочно!", "ОТЧЕТ")); // текст другой, слова и поля те же
+        assertEquals(List.of(1, 2), index.search("отчет", 10));
+    }
+}
@@ -0,0 +1,127 @@
+package taskmanager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTaskManagerTest extends AbstractTaskManagerTest<SnapshotTaskManager> {
+
+    @BeforeEach
+    void initManager() {
+        this.manager = new SnapshotTaskManager();
+        createTasks();
+    }
+
+    @Override
+    protected SnapshotTaskManager getTaskManagerForChecks() {
+        return this.manager;
+    }
+
+    @Test
+    void listsAreSharedUntilNextWrite() {
+        List<Task> tasks = manager.getTasks();
+        List<Task> prioritizedTasks = manager.getPrioritizedTasks();
+        final long version = manager.getVersion();
+
+        assertSame(tasks, manager.getTasks());
+        assertSame(prioritizedTasks, manager.getPrioritizedTasks());
+        assertEquals(version, manager.getVersion());
+
+        Assertions.assertDoesNotThrow(() -> manager.addTask(new Task("Новая", "", Status.NEW,
+                LocalDateTime.of(2025, 7, 1, 10, 0), Duration.ofMinutes(30))));
+
+        assertTrue(manager.getVersion() > version);
+        assertNotSame(tasks, manager.getTasks());
+        assertEquals(tasks.size() + 1, manager.getTasks().size());
+        assertEquals(prioritizedTasks.size() + 1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void readsDoNotChangeVersion() {
+        final long version = manager.getVersion();
+
+        manager.getTask(task.getId());
+        manager.getEpics();
+        manager.getSubtasks();
+
+        assertEquals(version, manager.getVersion());
+    }
+
+    @Test
+    void listsAreImmutable() {
+        List<Task> tasks = manager.getTasks();
+
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(task));
+    }
+
+    @Test
+    void listsHoldSharedTaskVersions() {
+        final int id = task.getId();
+        Task version = find(manager.getTasks(), id);
+
+        assertTrue(version.isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> version.setStatus(Status.DONE));
+
+        Task other = manager.addTask(new Task("Еще одна", "", Status.NEW));
+        assertSame(version, find(manager.getTasks(), id));
+        assertTrue(manager.getTasks().contains(other));
+    }
+
+    @Test
+    void versionsTakenDuringWritesMatchFinalState() throws Exception {
+        final Epic busy = manager.addEpic(new Epic("Эпик", ""));
+        final Subtask child = manager.addSubtask(new Subtask("Подзадача", "", Status.NEW, busy.getId(), null, null));
+        final Status[] statuses = Status.values();
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            readers.add(executor.submit(() -> {
+                while (running.get()) {
+                    manager.getEpics(0, 10);
+                    manager.getByStatus(TaskType.EPIC, Status.DONE);
+                    manager.getEpics();
+                }
+                return null;
+            }));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            Subtask updated = child.clone();
+            updated.setStatus(statuses[i % statuses.length]);
+            manager.updateSubtask(updated);
+            if (i % 100 == 0)
+                manager.addSubtask(new Subtask("Еще", "", Status.NEW, busy.getId(), null, null));
+        }
+        running.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Epic live = manager.getEpics(busy.getId() - 1, 1).getFirst();
+        assertEquals(manager.getEpicStatus(busy.getId()), live.getStatus());
+        assertEquals(manager.getSubtasksByEpicId(busy.getId()).size(), live.getSubtasks().size());
+    }
+
+    private static Task find(List<Task> tasks, int id) {
+        return tasks.stream().filter(item -> item.getId() == id).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,173 @@
+package taskmanager;
+
+import exception.LoadTaskException;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskLineReaderTest {
+
+    @Test
+    void readsBackWhatToLineWrites() throws IOException {
+        final String[] texts = {"Задача", "", "a, b", "say \"hi\"", "две\nстроки", " отступ ", "null", null,
+                "emoji 🚀", "\"\"", ",", "\r\n"};
+        final List<Task> items = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String name = texts[i % texts.length];
+            String description = texts[(i * 7 + 3) % texts.length];
+            switch (i % 3) {
+                case 0 -> items.add(new Task(i, name, description, Status.values()[i % 3],
+                        i % 4 == 0 ? null : LocalDateTime.of(2025, 1, 1, 0, 0, i % 60, i * 1000).plusMinutes(i),
+                        i % 5 == 0 ? null : Duration.ofMinutes(i)));
+                case 1 -> items.add(new Epic(i, name, description));
+                default -> items.add(new Subtask(i, name, description, Status.DONE, i - 1,
+                        i % 4 == 0 ? null : LocalDateTime.of(2025, 3, 1, 12, 30).plusSeconds(i),
+                        Duration.ofMinutes(15)));
+            }
+        }
+        StringBuilder csv = new StringBuilder("type,id,name,description,status,epic,startTime,duration\n");
+        items.forEach(item -> item.appendLine(csv));
+
+        TaskLineReader reader = reader(csv.toString());
+        assertTrue(reader.skipLine());
+        for (Task expected : items) {
+            assertTrue(reader.nextRecord());
+            Task actual = reader.readTask();
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            if (expected instanceof Epic)
+                continue;
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getStartTime(), actual.getStartTime());
+            assertEquals(expected.getDuration(), actual.getDuration());
+            if (expected instanceof Subtask subtask)
+                assertEquals(subtask.getEpicId(), ((Subtask) actual).getEpicId());
+        }
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void readsLinesWrittenByPreviousVersions() throws IOException {
+        TaskLineReader reader = reader("TASK,1,Имя,Описание,IN_PROGRESS,2025-01-01T10:00,30\r\n"
+                + "\n"
+                + "   \n"
+                + "SUBTASK, 2, Подзадача , , DONE, 5, 2025-01-01T10:00:15.5, null\n"
+                + "TASK, 3, Без времени, Описание, NEW, когда-нибудь, долго");
+
+        assertTrue(reader.nextRecord());
+        Task task = reader.readTask();
+        assertEquals("Имя", task.getName());
+        assertEquals(Status.IN_PROGRESS, task.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), task.getStartTime());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+
+        assertTrue(reader.nextRecord());
+        Subtask subtask = (Subtask) reader.readTask();
+        assertEquals("Подзадача", subtask.getName());
+        assertEquals("", subtask.getDescription());
+        assertEquals(5, subtask.getEpicId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0, 15, 500_000_000), subtask.getStartTime());
+        assertNull(subtask.getDuration());
+
+        assertTrue(reader.nextRecord());
+        Task untimed = reader.readTask();
+        assertNull(untimed.getStartTime());
+        assertNull(untimed.getDuration());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void readsLinesLongerThanBuffer() throws IOException {
+        final String description = "x,".repeat(100_000);
+        Task task = new Task(1, "Имя", description, Status.NEW, null, null);
+
+        TaskLineReader reader = reader(task.toLine() + task.toLine());
+        for (int i = 0; i < 2; i++) {
+            assertTrue(reader.nextRecord());
+            assertEquals(description, reader.readTask().getDescription());
+        }
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void readsJournalRecords() throws IOException {
+        TaskLineReader reader = reader("+EPIC, 4, Эпик, null\n-4\n!SUBTASK\n");
+
+        assertTrue(reader.nextRecord());
+        assertEquals('+', reader.readPrefix());
+        assertEquals(Epic.class, reader.readTask().getClass());
+        assertTrue(reader.nextRecord());
+        assertEquals('-', reader.readPrefix());
+        assertEquals(4, reader.readInt());
+        assertTrue(reader.nextRecord());
+        assertEquals('!', reader.readPrefix());
+        assertEquals(TaskType.SUBTASK, reader.readTaskType());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void readsRangeOfArray() throws IOException {
+        final byte[] data = "мусор\nTASK, 7, Имя, Описание, NEW, null, null\nмусор"
+                .getBytes(StandardCharsets.UTF_8);
+        final int garbage = "мусор".getBytes(StandardCharsets.UTF_8).length;
+        TaskLineReader reader = new TaskLineReader(data, garbage + 1, data.length - garbage);
+
+        assertTrue(reader.nextRecord());
+        assertEquals(7, reader.readTask().getId());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void rejectsMalformedLines() throws IOException {
+        assertThrows(LoadTaskException.class, () -> readSingle("TASK, 1, Имя"));
+        assertThrows(LoadTaskException.class, () -> readSingle("STORY, 1, Имя, Описание"));
+        assertThrows(LoadTaskException.class, () -> readSingle("TASK, один, Имя, Описание, NEW, null, null"));
+        assertThrows(LoadTaskException.class, () -> readSingle("TASK, 1, Имя, Описание, LATER, null, null"));
+        assertThrows(LoadTaskException.class, () -> readSingle("TASK, 1, \"Имя, Описание, NEW, null, null"));
+        assertThrows(LoadTaskException.class, () -> readSingle("TASK, 1, \"Важно\" купить, null, NEW, null, null"));
+    }
+
+    @Test
+    void legacyLinesIgnoreQuotes() throws IOException {
+        TaskLineReader reader = reader("TASK, 1, \"Важно\" купить, null, NEW, null, null\n"
+                + "TASK, 2, \"Без пары, Описание, NEW, null, null\n");
+        reader.setLegacy(true);
+
+        assertTrue(reader.nextRecord());
+        Task first = reader.readTask();
+        assertEquals("\"Важно\" купить", first.getName());
+        assertEquals("null", first.getDescription());
+        assertTrue(reader.nextRecord());
+        assertEquals("\"Без пары", reader.readTask().getName());
+        assertFalse(reader.nextRecord());
+    }
+
+    private static Task readSingle(String line) throws IOException {
+        TaskLineReader reader = reader(line);
+        assertTrue(reader.nextRecord());
+        return reader.readTask();
+    }
+
+    private static TaskLineReader reader(String content) {
+        ReadableByteChannel channel = Channels.newChannel(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        return new TaskLineReader(channel);
+    }
+}
@@ -0,0 +1,48 @@
+package taskmanager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskLineWriterTest {
+
+    @Test
+    void bytesMatchToLineEncodedAsUtf8() throws IOException {
+        final List<Task> items = new ArrayList<>();
+        final String[] names = {"Задача", "ascii", "emoji 🚀", "непарный \uD800 суррогат", "¢€"};
+        for (int i = 0; i < 20_000; i++) {
+            String name = names[i % names.length];
+            switch (i % 3) {
+                case 0 -> items.add(new Task(i, name, "Описание", Status.NEW,
+                        LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i), Duration.ofMinutes(i)));
+                case 1 -> items.add(new Epic(i, name, null));
+                default -> items.add(new Subtask(i, name, "", Status.DONE, 1, null, null));
+            }
+        }
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        TaskLineWriter writer = new TaskLineWriter(actual);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writer.write("заголовок\n");
+        expected.write("заголовок\n".getBytes(StandardCharsets.UTF_8));
+        for (Task item : items) {
+            writer.write(item);
+            expected.write(item.toLine().getBytes(StandardCharsets.UTF_8));
+        }
+        writer.flush();
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+}
@@ -85,4 +85,18 @@ class EpicTest {
         assertNotSame(epic.getSubtasks(), clone.getSubtasks());
         assertEquals(epic.getSubtasks(), clone.getSubtasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    void snapshotFreezesSubtasks() {
+        epic.addSubtask(5);
+        Epic snapshot = epic.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addSubtask(6));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getSubtasks().add(6));
+
+        epic.addSubtask(6);
+        assertEquals(1, snapshot.getSubtasks().size());
+        assertEquals(2, epic.snapshot().getSubtasks().size());
+        assertTrue(epic.snapshot().clone().addSubtask(7));
+    }
+}
@@ -0,0 +1,104 @@
+package tasks;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* toLine() собирается через appendLine без String.format. Ожидаемые строки строятся прежним
+   способом, чтобы формат файла остался побайтно тем же. Отличаются только тексты, которые раньше
+   не читались обратно: они теперь берутся в кавычки */
+class TaskLineTest {
+
+    private static final int[] NANOS = {0, 500, 1000, 120_000, 1_000_000, 123_000_000, 100_000_000, 999_999_999};
+    private static final String[] TEXTS = {"Имя", "", "с пробелами внутри", null, "emoji 😀"};
+
+    @Test
+    void taskLineMatchesLegacyFormat() {
+        final Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            Task task = new Task(random.nextInt(1_000_000), text(random), text(random), status(random),
+                    time(random), duration(random));
+            assertEquals(legacy(task), task.toLine());
+        }
+    }
+
+    @Test
+    void subtaskLineMatchesLegacyFormat() {
+        final Random random = new Random(12);
+        for (int i = 0; i < 5000; i++) {
+            Subtask subtask = new Subtask(random.nextInt(1_000_000), text(random), text(random), status(random),
+                    random.nextInt(1000), time(random), duration(random));
+            assertEquals(legacy(subtask), subtask.toLine());
+        }
+    }
+
+    @Test
+    void epicLineMatchesLegacyFormat() {
+        final Random random = new Random(13);
+        for (int i = 0; i < 1000; i++) {
+            Epic epic = new Epic(random.nextInt(1_000_000), text(random), text(random));
+            assertEquals(String.format("EPIC, %d, %s, %s\n", epic.getId(), epic.getName(), epic.getDescription()),
+                    epic.toLine());
+        }
+    }
+
+    @Test
+    void appendLineAppendsToExistingContent() {
+        StringBuilder out = new StringBuilder("+");
+        Task task = new Task(3, "Имя", "Описание", Status.NEW, null, null);
+        task.appendLine(out);
+
+        assertEquals("+" + task.toLine(), out.toString());
+    }
+
+    @Test
+    void textsThatCannotBeReadBackAreQuoted() {
+        Task task = new Task(1, "a, b", "say \"hi\"", Status.NEW, null, null);
+        assertEquals("TASK, 1, \"a, b\", \"say \"\"hi\"\"\", NEW, null, null\n", task.toLine());
+
+        Epic epic = new Epic(2, " отступ", "null");
+        assertEquals("EPIC, 2, \" отступ\", \"null\"\n", epic.toLine());
+
+        Subtask subtask = new Subtask(3, "две\nстроки", null, Status.DONE, 2, null, null);
+        assertEquals("SUBTASK, 3, \"две\nстроки\", null, DONE, 2, null, null\n", subtask.toLine());
+    }
+
+    private static String legacy(Task task) {
+        return String.format("TASK, %d, %s, %s, %s, %s, %s\n", task.getId(), task.getName(), task.getDescription(),
+                task.getStatus().toString(),
+                task.getStartTime() == null ? "null" : task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                task.getDuration() == null ? "null" : task.getDuration().toMinutes());
+    }
+
+    private static String legacy(Subtask subtask) {
+        return String.format("SUBTASK, %d, %s, %s, %s, %d, %s, %s\n", subtask.getId(), subtask.getName(),
+                subtask.getDescription(), subtask.getStatus().toString(), subtask.getEpicId(),
+                subtask.getStartTime() == null ? "null" : subtask.getStartTime(),
+                subtask.getDuration() == null ? "null" : subtask.getDuration().toMinutes());
+    }
+
+    private static String text(Random random) {
+        return TEXTS[random.nextInt(TEXTS.length)];
+    }
+
+    private static Status status(Random random) {
+        return Status.values()[random.nextInt(Status.values().length)];
+    }
+
+    private static LocalDateTime time(Random random) {
+        if (random.nextInt(5) == 0)
+            return null;
+        final int year = random.nextInt(10) == 0 ? random.nextInt(40_000) - 20_000 : random.nextInt(10_000);
+        return LocalDateTime.of(year, 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24),
+                random.nextInt(60), random.nextBoolean() ? 0 : random.nextInt(60), NANOS[random.nextInt(NANOS.length)]);
+    }
+
+    private static Duration duration(Random random) {
+        return random.nextInt(5) == 0 ? null : Duration.ofMinutes(random.nextInt(100_000));
+    }
+}
@@ -42,4 +42,32 @@ class TaskTest {
         assertEquals(task, clone);
         assertNotSame(task, clone);
     }
-}
\ No newline at end of file
+
+    @Test
+    void snapshotIsCachedUntilChange() {
+        Task snapshot = task.snapshot();
+
+        assertEquals(task, snapshot);
+        assertNotSame(task, snapshot);
+        assertTrue(snapshot.isFrozen());
+        assertSame(snapshot, task.snapshot());
+        assertSame(snapshot, snapshot.snapshot());
+
+        task.setStatus(Status.DONE);
+        assertNotSame(snapshot, task.snapshot());
+        assertEquals(Status.NEW, snapshot.getStatus());
+        assertEquals(Status.DONE, task.snapshot().getStatus());
+    }
+
+    @Test
+    void snapshotCannotBeChanged() {
+        Task snapshot = task.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setName("Другое имя"));
+
+        Task copy = snapshot.clone();
+        assertFalse(copy.isFrozen());
+        copy.setName("Другое имя");
+        assertEquals("Task Name", snapshot.getName());
+    }
+}
@@ -0,0 +1,253 @@
+package timeindex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeIndexTest {
+
+    private TimeIndex index;
+
+    @BeforeEach
+    void initIndex() {
+        index = new TimeIndex();
+    }
+
+    private static Task task(int id, int hour, int minute, long minutes) {
+        return new Task(id, "Task" + id, "", Status.NEW,
+                LocalDateTime.of(2025, 1, 1, hour, minute), Duration.ofMinutes(minutes));
+    }
+
+    @Test
+    void addKeepsOrderByStartTime() {
+        Task t1 = task(1, 12, 0, 30);
+        Task t2 = task(2, 9, 0, 30);
+        Task t3 = task(3, 10, 0, 30);
+
+        assertTrue(index.add(t1));
+        assertTrue(index.add(t2));
+        assertTrue(index.add(t3));
+        assertFalse(index.add(new Task("NoTime", "", Status.NEW)));
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(t2, t3, t1), List.copyOf(index));
+    }
+
+    @Test
+    void findOverlap() {
+        Task t1 = task(1, 10, 0, 60);
+        Task t2 = task(2, 12, 0, 60);
+        index.add(t1);
+        index.add(t2);
+
+        assertEquals(t1, index.findOverlap(task(0, 9, 30, 30)));   // касается начала t1
+        assertEquals(t1, index.findOverlap(task(0, 10, 30, 10)));  // внутри t1
+        assertEquals(t2, index.findOverlap(task(0, 11, 30, 60)));  // заходит на t2
+        assertEquals(t1, index.findOverlap(task(0, 8, 0, 600)));   // накрывает обе
+        assertNull(index.findOverlap(task(0, 11, 10, 20)));         // между задачами
+        assertNull(index.findOverlap(task(0, 14, 0, 20)));
+        assertNull(index.findOverlap(new Task("NoTime", "", Status.NEW)));
+    }
+
+    @Test
+    void findOverlapIgnoresSameId() {
+        Task t1 = task(1, 10, 0, 60);
+        Task t2 = task(2, 12, 0, 60);
+        index.add(t1);
+        index.add(t2);
+
+        assertNull(index.findOverlap(task(1, 10, 30, 60)));
+        assertEquals(t1, index.findOverlap(task(2, 10, 30, 60)));
+    }
+
+    @Test
+    void tasksWithoutDurationDoNotConflict() {
+        Task point = new Task(1, "Point", "", Status.NEW, LocalDateTime.of(2025, 1, 1, 10, 0), null);
+        index.add(point);
+
+        assertEquals(1, index.size());
+        assertNull(index.findOverlap(task(0, 9, 0, 120)));
+    }
+
+    @Test
+    void remove() {
+        Task t1 = task(1, 10, 0, 60);
+        index.add(t1);
+
+        assertTrue(index.remove(t1));
+        assertFalse(index.remove(t1));
+        assertTrue(index.isEmpty());
+        assertNull(index.findOverlap(task(0, 10, 0, 60)));
+    }
+
+    @Test
+    void taskChangedInPlaceIsRemovedByIndexedTime() {
+        Task t1 = task(1, 10, 0, 60);
+        Task t2 = task(2, 12, 0, 30);
+        index.add(t1);
+        index.add(t2);
+
+        t1.setStartTime(LocalDateTime.of(2025, 1, 1, 13, 0));
+        assertTrue(index.contains(t1));
+        assertTrue(index.remove(t1));
+        assertFalse(index.contains(t1));
+        assertEquals(List.of(t2), List.copyOf(index));
+        assertNull(index.findOverlap(task(0, 10, 0, 30)));
+
+        index.add(t1);
+        assertEquals(List.of(t2, t1), List.copyOf(index));
+        assertEquals(t1, index.findOverlap(task(0, 13, 30, 10)));
+    }
+
+    @Test
+    void removeIf() {
+        index.add(task(1, 10, 0, 60));
+        index.add(task(2, 12, 0, 60));
+        index.add(task(3, 14, 0, 60));
+
+        index.removeIf(task -> task.getId() == 2);
+
+        assertEquals(2, index.size());
+        assertNull(index.findOverlap(task(0, 12, 0, 60)));
+        assertNotNull(index.findOverlap(task(0, 14, 30, 10)));
+    }
+
+    @Test
+    void findOverlapForBatch() {
+        Task t1 = task(1, 10, 0, 60);
+        Task t2 = task(2, 12, 0, 60);
+        index.add(t1);
+        index.add(t2);
+
+        assertNull(index.findOverlap(List.of(task(0, 9, 0, 30), task(0, 11, 10, 20), task(0, 14, 0, 20)), id -> false));
+
+        Map.Entry<Task, Task> inBatch = index.findOverlap(List.of(task(3, 15, 0, 60), task(4, 15, 30, 10)),
+                id -> false);
+        assertEquals(4, inBatch.getKey().getId());
+        assertEquals(3, inBatch.getValue().getId());
+
+        Task covering = task(5, 8, 0, 600);
+        Map.Entry<Task, Task> withSchedule = index.findOverlap(List.of(covering), id -> false);
+        assertSame(covering, withSchedule.getKey());
+        assertEquals(t1, withSchedule.getValue());
+    }
+
+    @Test
+    void findOverlapForBatchSkipsReplacedTasks() {
+        index.add(task(1, 10, 0, 60));
+        index.add(task(2, 12, 0, 60));
+
+        /* Задачи меняются местами - со старыми версиями друг друга они бы пересеклись */
+        final List<Task> swapped = List.of(task(1, 12, 0, 60), task(2, 10, 0, 60));
+        assertNull(index.findOverlap(swapped, id -> id == 1 || id == 2));
+        assertNotNull(index.findOverlap(swapped, id -> id == 1));
+    }
+
+    @Test
+    void startingBetweenIsHalfOpen() {
+        Task t1 = task(1, 9, 0, 30);
+        Task t2 = task(2, 10, 0, 30);
+        Task t3 = new Task(3, "Point", "", Status.NEW, LocalDateTime.of(2025, 1, 1, 10, 0), null);
+        Task t4 = task(4, 11, 0, 30);
+        index.add(t1);
+        index.add(t2);
+        index.add(t3);
+        index.add(t4);
+
+        assertEquals(List.of(t2, t3), List.copyOf(index.startingBetween(
+                LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 1, 11, 0))));
+        assertTrue(index.startingBetween(
+                LocalDateTime.of(2025, 1, 1, 11, 0), LocalDateTime.of(2025, 1, 1, 11, 0)).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> index.startingBetween(
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 0, 0)).remove(t1));
+        assertThrows(IllegalArgumentException.class, () -> index.startingBetween(
+                LocalDateTime.of(2025, 1, 2, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void overlappingIncludesTaskStartedEarlier() {
+        Task t1 = task(1, 9, 0, 90);
+        Task t2 = task(2, 8, 0, 30);
+        Task t3 = new Task(3, "Point", "", Status.NEW, LocalDateTime.of(2025, 1, 1, 9, 45), null);
+        Task t4 = task(4, 11, 0, 30);
+        Task t5 = task(5, 12, 0, 30);
+        index.add(t1);
+        index.add(t2);
+        index.add(t3);
+        index.add(t4);
+        index.add(t5);
+
+        List<Task> found = new ArrayList<>();
+        index.overlapping(LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 1, 11, 0))
+                .forEachRemaining(found::add);
+        assertEquals(List.of(t1, t4), found);
+
+        found.clear();
+        index.overlapping(LocalDateTime.of(2025, 1, 1, 10, 31), LocalDateTime.of(2025, 1, 1, 10, 59))
+                .forEachRemaining(found::add);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    void findFreeSlotSkipsBusyTime() {
+        index.add(task(1, 9, 0, 60));
+        index.add(task(2, 10, 30, 30));
+        index.add(new Task(3, "Point", "", Status.NEW, LocalDateTime.of(2025, 1, 1, 10, 5), null));
+
+        // между 10:00 и 10:30 помещается только задача короче 29 минут: границы интервалов включаются
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 1),
+                index.findFreeSlot(Duration.ofMinutes(28), LocalDateTime.of(2025, 1, 1, 9, 30)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 1),
+                index.findFreeSlot(Duration.ofMinutes(29), LocalDateTime.of(2025, 1, 1, 9, 30)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 8, 0),
+                index.findFreeSlot(Duration.ofMinutes(59), LocalDateTime.of(2025, 1, 1, 8, 0)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 1),
+                index.findFreeSlot(Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 8, 0)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 6),
+                index.findFreeSlot(Duration.ofMinutes(10), LocalDateTime.of(2025, 1, 1, 10, 5, 30)));
+
+        index.remove(task(2, 10, 30, 30));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 1),
+                index.findFreeSlot(Duration.ofMinutes(29), LocalDateTime.of(2025, 1, 1, 9, 30)));
+        index.clear();
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 30),
+                index.findFreeSlot(Duration.ofMinutes(29), LocalDateTime.of(2025, 1, 1, 9, 30)));
+    }
+
+    @Test
+    void findFreeSlotMatchesLinearScan() {
+        final Random random = new Random(11);
+        final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        final List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            if (!added.isEmpty() && random.nextInt(3) == 0) {
+                index.remove(added.remove(random.nextInt(added.size())));
+            } else {
+                Task candidate = new Task(i, "T" + i, "", Status.NEW,
+                        base.plusMinutes(random.nextInt(20_000)), Duration.ofMinutes(1 + random.nextInt(30)));
+                if (index.findOverlap(candidate) == null) {
+                    index.add(candidate);
+                    added.add(candidate);
+                }
+            }
+
+            final Duration length = Duration.ofMinutes(random.nextInt(40));
+            final LocalDateTime notBefore = base.plusMinutes(random.nextInt(21_000));
+            LocalDateTime expected = notBefore;
+            while (index.findOverlap(new Task(-1, "", "", Status.NEW, expected, length)) != null) {
+                expected = expected.plusMinutes(1);
+            }
+            assertEquals(expected, index.findFreeSlot(length, notBefore));
+        }
+    }
+}